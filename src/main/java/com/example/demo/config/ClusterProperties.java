@@ -0,0 +1,55 @@
+package com.example.demo.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for running several instances against a shared database and storage directory
+ * (the {@code cluster} profile).
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pdf.cluster")
+public class ClusterProperties {
+
+    private boolean enabled;
+
+    /**
+     * Base URL under which the other nodes reach this one; must match its entry in {@link #nodes}.
+     */
+    private String selfUrl = "http://localhost:8080";
+
+    /**
+     * Base URLs of all nodes, this one included. Every node must be given the same list.
+     */
+    private List<String> nodes = new ArrayList<>();
+
+    /**
+     * Points per node on the hash ring; more points spread routing keys, and so the load, more evenly.
+     */
+    private int virtualNodes = 64;
+
+    /**
+     * Shared by all nodes and sent with every call between them; forwarded requests and template
+     * invalidations without it are rejected. Required in cluster mode.
+     */
+    private String secret;
+
+    /**
+     * Largest generation request body a node reads to route it; larger ones get {@code 413}.
+     */
+    private DataSize maxBodySize = DataSize.ofMegabytes(16);
+
+    private Duration connectTimeout = Duration.ofSeconds(2);
+
+    /**
+     * Upper bound for a forwarded generation, above the largest {@code pdf.generation.max-timeout}.
+     */
+    private Duration forwardTimeout = Duration.ofMinutes(3);
+}
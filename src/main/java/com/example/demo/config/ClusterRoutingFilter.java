@@ -0,0 +1,326 @@
+package com.example.demo.config;
+
+import com.example.demo.controller.GenerationRequests;
+import com.example.demo.controller.PdfController;
+import com.example.demo.dto.ReportData;
+import com.example.demo.service.PdfOutputProfile;
+import com.example.demo.service.ReportKey;
+import com.example.demo.service.cluster.ClusterMembership;
+import com.example.demo.service.cluster.PeerClient;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In cluster mode, sends each generation request to the node that owns its routing key on the hash
+ * ring and streams the response back unchanged.
+ * <p>
+ * The key is the endpoint plus the {@link ReportKey} of the request, the same key requests are
+ * coalesced on, so identical reports meet on one node however their JSON is ordered, while load
+ * spreads over all nodes. Requests are not pinned to a node per template: every node renders every
+ * template. Appends are keyed by report id instead, so all appends to a report are serialised on
+ * one node.
+ * <p>
+ * The body is read into memory to compute the key, up to {@code pdf.cluster.max-body-size}; larger
+ * bodies are rejected with {@code 413} before anything is routed.
+ * <p>
+ * Forwarding is asynchronous: the servlet thread is released while the owner generates. Only a
+ * request that never reached the owner is handled here instead, and not for appends; if the owner
+ * was reached but failed or timed out, generating again here could duplicate the work, so the
+ * client gets {@code 502} or {@code 504}.
+ */
+@Slf4j
+@Component
+public class ClusterRoutingFilter extends OncePerRequestFilter {
+
+    /**
+     * Node that produced the response, for clients and for checking the routing.
+     */
+    public static final String NODE_HEADER = "X-Cluster-Node";
+
+    private static final String APPEND_PATH = "/api/pdf/append";
+
+    /**
+     * Generation endpoints and the name their routing keys start with.
+     */
+    private static final Map<String, String> ROUTES = Map.of(
+            "/api/pdf/generate", "report.ftl",
+            "/api/pdf/generate/auto", "routed",
+            "/api/pdf/generate/native", "native-table",
+            APPEND_PATH, "append",
+            "/api/reports/generate", "sample-report.jrxml");
+
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT, GenerationRequests.TIMEOUT_HEADER, DebugLogSamplingFilter.DEBUG_HEADER);
+
+    private static final List<String> RETURNED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_DISPOSITION, HttpHeaders.RETRY_AFTER, PdfController.REPORT_ID_HEADER);
+
+    private static final String RETRY_AFTER_SECONDS = "5";
+
+    private final ClusterMembership clusterMembership;
+    private final PeerClient peerClient;
+    private final ObjectMapper objectMapper;
+    private final int maxBodySize;
+
+    public ClusterRoutingFilter(ClusterMembership clusterMembership, PeerClient peerClient, ObjectMapper objectMapper,
+                                ClusterProperties properties) {
+        this.clusterMembership = clusterMembership;
+        this.peerClient = peerClient;
+        this.objectMapper = objectMapper;
+        // one byte under the array size limit, so reading one byte past the cap still fits
+        this.maxBodySize = (int) Math.min(properties.getMaxBodySize().toBytes(), Integer.MAX_VALUE - 9);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !clusterMembership.isEnabled()
+                || !"POST".equals(request.getMethod())
+                || !ROUTES.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(PeerClient.FORWARDED_HEADER) != null) {
+            if (!clusterMembership.isTrusted(request.getHeader(PeerClient.SECRET_HEADER))) {
+                log.warn("Rejecting request from {} that claims to be forwarded but lacks the cluster secret",
+                        request.getRemoteAddr());
+                response.sendError(HttpServletResponse.SC_FORBIDDEN);
+                return;
+            }
+            // already routed by a peer: handled here, so a request never bounces between nodes
+            response.setHeader(NODE_HEADER, clusterMembership.self());
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = request.getContentLengthLong() > maxBodySize
+                ? null : request.getInputStream().readNBytes(maxBodySize + 1);
+        if (body == null || body.length > maxBodySize) {
+            log.warn("Rejecting {} from {}: body larger than {} bytes", request.getRequestURI(),
+                    request.getRemoteAddr(), maxBodySize);
+            response.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            return;
+        }
+        HttpServletRequest replayable = new CachedBodyRequest(request, body);
+        String key = routingKey(request.getRequestURI(), request.getParameter("profile"), body);
+        String owner = key == null ? clusterMembership.self() : clusterMembership.ownerOf(key);
+        if (owner.equals(clusterMembership.self())) {
+            response.setHeader(NODE_HEADER, owner);
+            chain.doFilter(replayable, response);
+            return;
+        }
+
+        String pathAndQuery = request.getQueryString() == null
+                ? request.getRequestURI() : request.getRequestURI() + "?" + request.getQueryString();
+        Map<String, String> headers = new HashMap<>();
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            String value = request.getHeader(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+
+        log.debug("Forwarding {} to {}", pathAndQuery, owner);
+        AsyncContext async = request.startAsync(replayable, response);
+        async.setTimeout(peerClient.maxForwardDuration().plusSeconds(5).toMillis());
+        AtomicBoolean answered = new AtomicBoolean();
+        CompletableFuture<HttpResponse<InputStream>> forwarded =
+                peerClient.forward(owner, pathAndQuery, headers, body, clusterMembership.self());
+        async.addListener(new AsyncListener() {
+            @Override
+            public void onTimeout(AsyncEvent event) throws IOException {
+                if (answered.compareAndSet(false, true)) {
+                    forwarded.cancel(true);
+                    sendError(async, HttpServletResponse.SC_GATEWAY_TIMEOUT, owner);
+                }
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                // the client went away, stop waiting for the owner
+                forwarded.cancel(true);
+            }
+
+            @Override
+            public void onComplete(AsyncEvent event) {
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+        // the owner has finished generating once its headers arrive, so copying only waits on the network
+        forwarded.whenComplete((ownerResponse, error) -> {
+            if (!answered.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                if (error == null) {
+                    relay(ownerResponse, owner, response);
+                    async.complete();
+                } else {
+                    handleFailure(async, request.getRequestURI(), owner, unwrap(error));
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Failed to relay the response of {} from {}: {}", pathAndQuery, owner, e.getMessage());
+                async.complete();
+            }
+        });
+    }
+
+    /**
+     * @param profile the {@code profile} request parameter, {@code null} for the default
+     * @return the key the request is routed by, or {@code null} to handle it here
+     */
+    String routingKey(String path, String profile, byte[] body) {
+        String route = ROUTES.get(path);
+        try {
+            if (APPEND_PATH.equals(path)) {
+                JsonNode reportId = objectMapper.readTree(body).path("reportId");
+                return reportId.isTextual() ? route + ":" + reportId.asText() : null;
+            }
+            PdfOutputProfile outputProfile = profile == null ? PdfOutputProfile.DEFAULT : PdfOutputProfile.valueOf(profile.trim());
+            return route + ":" + ReportKey.of(route, outputProfile, objectMapper.readValue(body, ReportData.class));
+        } catch (IOException | IllegalArgumentException e) {
+            // not a valid request, rejected by the controller wherever it runs
+            return null;
+        }
+    }
+
+    private void handleFailure(AsyncContext async, String path, String owner, Throwable error) throws IOException {
+        if (error instanceof HttpConnectTimeoutException || error instanceof ConnectException) {
+            if (APPEND_PATH.equals(path)) {
+                // the owner holds this report's appends in order; appending here could interleave with it
+                log.warn("Owner {} of {} unreachable, not appending elsewhere: {}", owner, path, error.getMessage());
+                ((HttpServletResponse) async.getResponse()).setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+                sendError(async, HttpServletResponse.SC_SERVICE_UNAVAILABLE, owner);
+                return;
+            }
+            log.warn("Owner {} of {} unreachable, generating locally: {}", owner, path, error.getMessage());
+            ((HttpServletResponse) async.getResponse()).setHeader(NODE_HEADER, clusterMembership.self());
+            // runs the request through the chain again as an async dispatch, which this filter skips
+            async.dispatch();
+            return;
+        }
+        if (error instanceof HttpTimeoutException) {
+            log.warn("Owner {} did not answer {} in time", owner, path);
+            sendError(async, HttpServletResponse.SC_GATEWAY_TIMEOUT, owner);
+            return;
+        }
+        log.warn("Forwarding {} to {} failed: {}", path, owner, error.toString());
+        sendError(async, HttpServletResponse.SC_BAD_GATEWAY, owner);
+    }
+
+    private static void relay(HttpResponse<InputStream> ownerResponse, String owner, HttpServletResponse response)
+            throws IOException {
+        response.setStatus(ownerResponse.statusCode());
+        response.setHeader(NODE_HEADER, owner);
+        for (String name : RETURNED_RESPONSE_HEADERS) {
+            ownerResponse.headers().firstValue(name).ifPresent(value -> response.setHeader(name, value));
+        }
+        ownerResponse.headers().firstValueAsLong(HttpHeaders.CONTENT_LENGTH).ifPresent(response::setContentLengthLong);
+        try (InputStream in = ownerResponse.body()) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    private static void sendError(AsyncContext async, int status, String owner) throws IOException {
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        response.setHeader(NODE_HEADER, owner);
+        response.sendError(status);
+        async.complete();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * Replays a request body that has already been read.
+     */
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    // the whole body is in memory, so it is available and complete straight away
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tags every request with a {@code requestId} in the MDC and marks a sample of them for
+ * debug logging, which {@link SampledDebugTurboFilter} turns on in the {@code prod} profile.
+ * With {@code pdf.logging.debug-header-enabled} a caller can also ask for debug logs explicitly
+ * with the {@value #DEBUG_HEADER} header.
+ */
+@Component
+public class DebugLogSamplingFilter extends OncePerRequestFilter {
+
+    public static final String MDC_REQUEST_ID = "requestId";
+    public static final String MDC_DEBUG_SAMPLED = "debugSampled";
+    public static final String SAMPLED = "true";
+    public static final String DEBUG_HEADER = "X-Debug-Log";
+
+    @Value("${pdf.logging.debug-sample-rate:0.01}")
+    private double sampleRate = 0.01;
+
+    @Value("${pdf.logging.debug-header-enabled:false}")
+    private boolean debugHeaderEnabled;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        MDC.put(MDC_REQUEST_ID, UUID.randomUUID().toString());
+        boolean requested = debugHeaderEnabled && Boolean.parseBoolean(request.getHeader(DEBUG_HEADER));
+        if (requested || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+            MDC.put(MDC_DEBUG_SAMPLED, SAMPLED);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            MDC.remove(MDC_REQUEST_ID);
+            MDC.remove(MDC_DEBUG_SAMPLED);
+        }
+    }
+}
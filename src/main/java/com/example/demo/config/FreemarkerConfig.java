@@ -1,5 +1,7 @@
 package com.example.demo.config;
 
+import freemarker.core.HTMLOutputFormat;
+import freemarker.core.TemplateClassResolver;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateExceptionHandler;
 import org.slf4j.Logger;
@@ -24,6 +26,13 @@ public class FreemarkerConfig {
         configuration.setLogTemplateExceptions(false);
         configuration.setWrapUncheckedExceptions(true);
         configuration.setFallbackOnNullLoopVariable(false);
+
+        // templates render request data, so they must not be able to instantiate or reach into Java classes
+        configuration.setNewBuiltinClassResolver(TemplateClassResolver.ALLOWS_NOTHING_RESOLVER);
+        configuration.setAPIBuiltinEnabled(false);
+        // every template produces (X)HTML, served as is by the HTML export or parsed as XML for PDFs,
+        // so request data must be escaped by default
+        configuration.setOutputFormat(HTMLOutputFormat.INSTANCE);
         
         // Set XML settings
         configuration.setTagSyntax(Configuration.AUTO_DETECT_TAG_SYNTAX);
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+
+/**
+ * Bounded pool that runs deadline-bound generation requests off the servlet threads. When the
+ * queue is full new requests are rejected at once instead of waiting past their deadline.
+ */
+@Configuration
+public class GenerationExecutorConfig {
+
+    @Bean(name = "generationExecutor")
+    public ThreadPoolTaskExecutor generationExecutor(@Value("${pdf.generation.threads:0}") int threads,
+                                                     @Value("${pdf.generation.queue-capacity:100}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-generation-");
+        executor.setTaskDecorator(mdcPropagation());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Carries requestId and the debug sampling flag over to the worker thread.
+     */
+    private static TaskDecorator mdcPropagation() {
+        return runnable -> {
+            Map<String, String> context = MDC.getCopyOfContextMap();
+            return () -> {
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                try {
+                    runnable.run();
+                } finally {
+                    MDC.clear();
+                }
+            };
+        };
+    }
+}
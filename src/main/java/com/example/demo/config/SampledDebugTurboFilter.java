@@ -0,0 +1,34 @@
+package com.example.demo.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * Enables DEBUG for the application's loggers on requests that {@link DebugLogSamplingFilter}
+ * picked for sampling, while everything else stays at the configured level.
+ * <p>
+ * Registered from {@code logback-spring.xml}. Because turbo filters also answer
+ * {@code isDebugEnabled()}, guarded statements are skipped outside sampled requests as well.
+ */
+public class SampledDebugTurboFilter extends TurboFilter {
+
+    private String loggerPrefix = "com.example.demo";
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (level == null || level.levelInt < Level.DEBUG_INT || !logger.getName().startsWith(loggerPrefix)) {
+            return FilterReply.NEUTRAL;
+        }
+        return DebugLogSamplingFilter.SAMPLED.equals(MDC.get(DebugLogSamplingFilter.MDC_DEBUG_SAMPLED))
+                ? FilterReply.ACCEPT
+                : FilterReply.NEUTRAL;
+    }
+
+    public void setLoggerPrefix(String loggerPrefix) {
+        this.loggerPrefix = loggerPrefix;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.config;
+
+import com.example.demo.entity.ReportStatus;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Settings for the background clean-up of {@code pdf-storage} and the temp directory.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "pdf.storage.lifecycle")
+public class StorageLifecycleProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * How long reports (and their files) are kept after their last update, per status.
+     * Statuses without an entry are kept forever.
+     */
+    private Map<ReportStatus, Duration> retention = new EnumMap<>(ReportStatus.class);
+
+    /**
+     * Minimum age before an unreferenced stored file, staging file or content object is removed,
+     * so files of in-flight generations are never touched.
+     */
+    private Duration orphanGracePeriod = Duration.ofHours(1);
+
+    /**
+     * Minimum age before a PDF in {@code pdf.storage.temp-dir} is removed; most are deleted as soon as
+     * they have been streamed back.
+     */
+    private Duration tempFileMaxAge = Duration.ofHours(1);
+
+    /**
+     * Upper bound on files deleted per run; the rest waits for the next run.
+     */
+    private int maxDeletionsPerRun = 1000;
+
+    /**
+     * After this many deletions the run pauses for {@link #pause} to leave disk bandwidth to generation.
+     */
+    private int batchSize = 50;
+
+    private Duration pause = Duration.ofMillis(200);
+}
@@ -0,0 +1,27 @@
+package com.example.demo.config;
+
+import com.example.demo.service.GeneratorWarmupService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reported as {@code warmup} and included in the readiness group, so the pod only receives
+ * traffic once {@link GeneratorWarmupService} has rendered through both engines.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    private final GeneratorWarmupService warmupService;
+
+    public WarmupHealthIndicator(GeneratorWarmupService warmupService) {
+        this.warmupService = warmupService;
+    }
+
+    @Override
+    public Health health() {
+        return warmupService.isComplete()
+                ? Health.up().build()
+                : Health.outOfService().withDetail("reason", "generator warm-up in progress").build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.config;
+
+import com.example.demo.service.export.ReportFormat;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Locale;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /**
+     * Lets {@code ?format=csv} work as well as {@code ?format=CSV}; a blank value counts as absent
+     * like with Spring's own enum conversion, unknown names still fail binding with a 400.
+     */
+    @Override
+    public void addFormatters(FormatterRegistry registry) {
+        registry.addConverter(String.class, ReportFormat.class,
+                source -> source.isBlank() ? null : ReportFormat.valueOf(source.trim().toUpperCase(Locale.ROOT)));
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.demo.controller;
+
+import com.example.demo.service.cluster.ClusterMembership;
+import com.example.demo.service.cluster.PeerClient;
+import com.example.demo.service.cluster.TemplateCacheInvalidator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private final ClusterMembership clusterMembership;
+    private final TemplateCacheInvalidator templateCacheInvalidator;
+
+    public ClusterController(ClusterMembership clusterMembership, TemplateCacheInvalidator templateCacheInvalidator) {
+        this.clusterMembership = clusterMembership;
+        this.templateCacheInvalidator = templateCacheInvalidator;
+    }
+
+    /**
+     * This node, its peers and, when {@code key} is given, the node that owns that routing key.
+     */
+    @GetMapping
+    public Map<String, Object> describe(@RequestParam(required = false) String key) {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("enabled", clusterMembership.isEnabled());
+        description.put("self", clusterMembership.self());
+        description.put("peers", clusterMembership.peers());
+        if (key != null) {
+            description.put("owner", clusterMembership.ownerOf(key));
+        }
+        return description;
+    }
+
+    /**
+     * Drops the cached compiled state of a template after it changed, here and on every peer.
+     * Calls coming from a peer only apply locally. In cluster mode the cluster secret is required.
+     */
+    @PostMapping("/templates/{template}/invalidate")
+    public ResponseEntity<Void> invalidateTemplate(@PathVariable String template,
+                                                   @RequestHeader(value = PeerClient.FORWARDED_HEADER, required = false) String forwardedBy,
+                                                   @RequestHeader(value = PeerClient.SECRET_HEADER, required = false) String secret) {
+        if (clusterMembership.isEnabled() && !clusterMembership.isTrusted(secret)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (forwardedBy != null) {
+            templateCacheInvalidator.invalidateLocally(template);
+        } else {
+            templateCacheInvalidator.invalidate(template);
+        }
+        return ResponseEntity.noContent().build();
+    }
+}
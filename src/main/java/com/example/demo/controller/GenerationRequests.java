@@ -0,0 +1,86 @@
+package com.example.demo.controller;
+
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.service.CancellationToken;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Runs a generation request asynchronously under a deadline.
+ * <p>
+ * The deadline is the {@value #TIMEOUT_HEADER} request header, capped at
+ * {@code pdf.generation.max-timeout}, or {@code pdf.generation.timeout} when absent. When it passes,
+ * or the container reports an error on the async request, the request's {@link CancellationToken}
+ * is cancelled so the generator stops at its next checkpoint. Requests that expire while queued
+ * never start.
+ * <p>
+ * A client that disconnects is not detected right away: nothing is written to the connection while
+ * the PDF is generated, and the container only notices a closed socket when it reads or writes, so
+ * a disconnect usually surfaces as an error when the response is sent. Until then the deadline is
+ * what bounds the work spent on an abandoned request; clients should send a tight
+ * {@value #TIMEOUT_HEADER}.
+ */
+@Slf4j
+@Component
+public class GenerationRequests {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final TaskExecutor executor;
+
+    @Value("${pdf.generation.timeout:PT30S}")
+    private Duration defaultTimeout = Duration.ofSeconds(30);
+
+    @Value("${pdf.generation.max-timeout:PT2M}")
+    private Duration maxTimeout = Duration.ofMinutes(2);
+
+    public GenerationRequests(@Qualifier("generationExecutor") TaskExecutor executor) {
+        this.executor = executor;
+    }
+
+    public <T> DeferredResult<T> submit(Long requestedTimeoutMs, Function<CancellationToken, T> work) {
+        Duration timeout = timeout(requestedTimeoutMs);
+        CancellationToken cancellation = CancellationToken.withTimeout(timeout);
+        DeferredResult<T> result = new DeferredResult<>(timeout.toMillis());
+
+        result.onTimeout(() -> {
+            cancellation.cancel("deadline exceeded");
+            result.setErrorResult(new GenerationCancelledException("Deadline of " + timeout.toMillis() + " ms exceeded"));
+        });
+        result.onError(error -> {
+            log.debug("Async request failed, e.g. the client disconnected, cancelling generation: {}", error.getMessage());
+            cancellation.cancel("request failed: " + error.getMessage());
+        });
+
+        try {
+            executor.execute(() -> {
+                try {
+                    cancellation.checkpoint("start");
+                    result.setResult(work.apply(cancellation));
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Generation queue full, rejecting request");
+            result.setErrorResult(new GenerationCancelledException("Server is busy, generation queue is full"));
+        }
+        return result;
+    }
+
+    private Duration timeout(Long requestedTimeoutMs) {
+        if (requestedTimeoutMs == null || requestedTimeoutMs <= 0) {
+            return defaultTimeout;
+        }
+        Duration requested = Duration.ofMillis(requestedTimeoutMs);
+        return requested.compareTo(maxTimeout) > 0 ? maxTimeout : requested;
+    }
+}
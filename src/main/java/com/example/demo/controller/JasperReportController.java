@@ -2,19 +2,23 @@ package com.example.demo.controller;
 
 import com.example.demo.dto.ReportData;
 import com.example.demo.dto.ReportItem;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.service.GenerationOptions;
 import com.example.demo.service.IPdfGenerator;
+import com.example.demo.service.PdfOutputProfile;
+import com.example.demo.util.FileStorageUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.io.ByteArrayResource;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
-import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
@@ -30,8 +34,16 @@ public class JasperReportController {
 
     private static final String OUTPUT_FILENAME = "report.pdf";
 
-    public JasperReportController(@Qualifier("jasperPdfService") IPdfGenerator pdfGenerator) {
+    private final GenerationRequests generationRequests;
+
+    private final FileStorageUtil fileStorageUtil;
+
+    public JasperReportController(@Qualifier("jasperPdfService") IPdfGenerator pdfGenerator,
+                                  GenerationRequests generationRequests,
+                                  FileStorageUtil fileStorageUtil) {
         this.pdfGenerator = pdfGenerator;
+        this.generationRequests = generationRequests;
+        this.fileStorageUtil = fileStorageUtil;
     }
 
     /**
@@ -85,22 +97,28 @@ public class JasperReportController {
 
 
     @PostMapping("/generate")
-    public ResponseEntity<Resource> generateCustomReport(@RequestBody ReportData reportData) {
-        try {
-            // Generate PDF
-            String pdfPath = pdfGenerator.generatePdf(reportData);
-
-
-            return createPdfResponse(pdfPath);
-        } catch (Exception e) {
-            log.error("Error generating PDF report: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().build();
-        }
+    public DeferredResult<ResponseEntity<Resource>> generateCustomReport(@RequestBody ReportData reportData,
+                                                                         @RequestParam(defaultValue = "DEFAULT") PdfOutputProfile profile,
+                                                                         @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        return generationRequests.submit(timeoutMs, cancellation -> {
+            try {
+                // Generate PDF
+                String pdfPath = pdfGenerator.generatePdf(reportData, GenerationOptions.of(profile, cancellation));
+
+
+                return createPdfResponse(pdfPath);
+            } catch (GenerationCancelledException | SchemaViolationException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error("Error generating PDF report: {}", e.getMessage(), e);
+                return ResponseEntity.internalServerError().build();
+            }
+        });
     }
 
     private ResponseEntity<Resource> createPdfResponse(String outputPath) {
-        File file = new File(outputPath);
-        Resource resource = new FileSystemResource(file);
+        // the temp file is deleted once it has been streamed
+        Resource resource = fileStorageUtil.pdfResource(outputPath);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=" + OUTPUT_FILENAME)
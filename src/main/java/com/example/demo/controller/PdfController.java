@@ -1,21 +1,34 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ReportData;
+import com.example.demo.entity.Report;
+import com.example.demo.exception.GenerationCancelledException;
 import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.service.CancellationToken;
+import com.example.demo.service.GenerationOptions;
 import com.example.demo.service.IPdfGenerator;
 import com.example.demo.service.PdfGeneratorService;
+import com.example.demo.service.PdfOutputProfile;
+import com.example.demo.service.ReportService;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.ReportDataLogSummary;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import jakarta.validation.Valid;
 
@@ -28,19 +41,95 @@ public class PdfController {
 
     private static final String OUTPUT_FILENAME = "report.pdf";
 
+    /**
+     * Id under which a stored report can be downloaded again from {@code /api/pdf/reports/{reportId}}.
+     * Jasper outputs are not stored, so they have no {@code Report} row and get no id.
+     */
+    public static final String REPORT_ID_HEADER = "X-Report-Id";
+
     private final IPdfGenerator pdfGenerator;
+    private final IPdfGenerator routingPdfGenerator;
+    private final IPdfGenerator incrementalPdfGenerator;
+    private final IPdfGenerator nativeTablePdfGenerator;
+    private final GenerationRequests generationRequests;
+    private final ReportService reportService;
+    private final FileStorageUtil fileStorageUtil;
 
-    public PdfController(@Qualifier("pdfGeneratorService") IPdfGenerator pdfGenerator) {
+    public PdfController(@Qualifier("coalescingPdfGenerator") IPdfGenerator pdfGenerator,
+                         @Qualifier("routingPdfGenerator") IPdfGenerator routingPdfGenerator,
+                         @Qualifier("incrementalPdfService") IPdfGenerator incrementalPdfGenerator,
+                         @Qualifier("nativeTablePdfService") IPdfGenerator nativeTablePdfGenerator,
+                         GenerationRequests generationRequests,
+                         ReportService reportService,
+                         FileStorageUtil fileStorageUtil) {
         this.pdfGenerator = pdfGenerator;
+        this.routingPdfGenerator = routingPdfGenerator;
+        this.incrementalPdfGenerator = incrementalPdfGenerator;
+        this.nativeTablePdfGenerator = nativeTablePdfGenerator;
+        this.generationRequests = generationRequests;
+        this.reportService = reportService;
+        this.fileStorageUtil = fileStorageUtil;
     }
 
     @PostMapping("/generate")
-    public ResponseEntity<Resource> generatePdf(@Valid @RequestBody ReportData reportData) {
-        log.debug("Generating PDF for report data: {}", reportData);
+    public DeferredResult<ResponseEntity<Resource>> generatePdf(@Valid @RequestBody ReportData reportData,
+                                                                @RequestParam(defaultValue = "DEFAULT") PdfOutputProfile profile,
+                                                                @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        log.debug("Generating PDF for report data: {}", ReportDataLogSummary.of(reportData));
+
+        return generationRequests.submit(timeoutMs, cancellation -> generate(pdfGenerator, reportData, profile, cancellation));
+    }
+
+    /**
+     * Generates the PDF with whichever engine the routing rules pick for this payload.
+     */
+    @PostMapping("/generate/auto")
+    public DeferredResult<ResponseEntity<Resource>> generatePdfAuto(@Valid @RequestBody ReportData reportData,
+                                                                    @RequestParam(defaultValue = "DEFAULT") PdfOutputProfile profile,
+                                                                    @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        return generationRequests.submit(timeoutMs, cancellation -> generate(routingPdfGenerator, reportData, profile, cancellation));
+    }
+
+    /**
+     * Draws the items table directly with OpenPDF, skipping HTML layout; the {@code data} map is not rendered.
+     */
+    @PostMapping("/generate/native")
+    public DeferredResult<ResponseEntity<Resource>> generatePdfNative(@Valid @RequestBody ReportData reportData,
+                                                                      @RequestParam(defaultValue = "DEFAULT") PdfOutputProfile profile,
+                                                                      @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        return generationRequests.submit(timeoutMs, cancellation -> generate(nativeTablePdfGenerator, reportData, profile, cancellation));
+    }
+
+    /**
+     * Renders only the items added since the last call for this report id and appends them
+     * to the stored PDF; the first call renders the whole report.
+     */
+    @PostMapping("/append")
+    public DeferredResult<ResponseEntity<Resource>> appendPdf(@Valid @RequestBody ReportData reportData,
+                                                              @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        return generationRequests.submit(timeoutMs, cancellation -> generate(incrementalPdfGenerator, reportData,
+                PdfOutputProfile.DEFAULT, cancellation));
+    }
+
+    /**
+     * Downloads a stored report. With shared storage this works on any node, not just the one that generated it.
+     */
+    @GetMapping("/reports/{reportId}")
+    public ResponseEntity<Resource> downloadPdf(@PathVariable String reportId) {
+        return reportService.getReport(reportId)
+                .map(Report::getFilePath)
+                .filter(path -> new File(path).isFile())
+                .map(this::createPdfResponse)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 
+    private ResponseEntity<Resource> generate(IPdfGenerator generator, ReportData reportData,
+                                              PdfOutputProfile profile, CancellationToken cancellation) {
         try {
-            String outputPath = pdfGenerator.generatePdf(reportData);
+            String outputPath = generator.generatePdf(reportData, GenerationOptions.of(profile, cancellation));
             return createPdfResponse(outputPath);
+        } catch (GenerationCancelledException | SchemaViolationException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to generate PDF: {}", e.getMessage(), e);
             throw new PDFGenerationException("Failed to generate PDF", e);
@@ -48,12 +137,14 @@ public class PdfController {
     }
 
     private ResponseEntity<Resource> createPdfResponse(String outputPath) {
-        File file = new File(outputPath);
-        Resource resource = new FileSystemResource(file);
+        // unstored outputs, e.g. Jasper's when routed there, are deleted once streamed
+        Resource resource = fileStorageUtil.pdfResource(outputPath);
 
-        return ResponseEntity.ok()
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename=" + OUTPUT_FILENAME)
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(resource);
+                .contentType(MediaType.APPLICATION_PDF);
+        reportService.getReportByFilePath(outputPath)
+                .ifPresent(report -> response.header(REPORT_ID_HEADER, report.getReportId()));
+        return response.body(resource);
     }
 }
\ No newline at end of file
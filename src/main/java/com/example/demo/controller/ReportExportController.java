@@ -0,0 +1,107 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.service.CancellationToken;
+import com.example.demo.service.GenerationOptions;
+import com.example.demo.service.IPdfGenerator;
+import com.example.demo.service.PdfOutputProfile;
+import com.example.demo.service.export.ReportExporter;
+import com.example.demo.service.export.ReportFormat;
+import com.example.demo.util.FileStorageUtil;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports the same report payload as PDF, CSV, XLSX or HTML. The format comes from the
+ * {@code format} parameter if present, otherwise from the Accept header, defaulting to PDF.
+ * Every format runs under the request's deadline like {@code /api/pdf/generate}, and the payload is
+ * checked before the response is committed, so a rejected {@code data} map is a 400 rather than a
+ * truncated 200. Non-PDF formats are then written straight to the response stream.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/export")
+public class ReportExportController {
+
+    private static final String OUTPUT_BASENAME = "report";
+
+    private final IPdfGenerator pdfGenerator;
+    private final Map<ReportFormat, ReportExporter> exporters = new EnumMap<>(ReportFormat.class);
+    private final GenerationRequests generationRequests;
+    private final FileStorageUtil fileStorageUtil;
+
+    public ReportExportController(@Qualifier("routingPdfGenerator") IPdfGenerator pdfGenerator,
+                                  List<ReportExporter> exporters,
+                                  GenerationRequests generationRequests,
+                                  FileStorageUtil fileStorageUtil) {
+        this.pdfGenerator = pdfGenerator;
+        this.generationRequests = generationRequests;
+        this.fileStorageUtil = fileStorageUtil;
+        exporters.forEach(exporter -> this.exporters.put(exporter.getFormat(), exporter));
+    }
+
+    @PostMapping
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> export(@Valid @RequestBody ReportData reportData,
+                                                                        @RequestParam(required = false) ReportFormat format,
+                                                                        @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                                        @RequestHeader(value = GenerationRequests.TIMEOUT_HEADER, required = false) Long timeoutMs) {
+        ReportFormat resolved = format != null ? format : ReportFormat.fromAccept(accept, ReportFormat.PDF);
+        log.info("Exporting report {} with {} items as {}", reportData.getReportId(),
+                reportData.getItems().size(), resolved);
+
+        if (resolved == ReportFormat.PDF) {
+            return generationRequests.submit(timeoutMs, cancellation -> response(resolved, pdfBody(reportData, cancellation)));
+        }
+        ReportExporter exporter = exporters.get(resolved);
+        return generationRequests.submit(timeoutMs, cancellation -> {
+            ReportExporter.PreparedExport export = exporter.prepare(reportData);
+            return response(resolved, export::writeTo);
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> response(ReportFormat format, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + OUTPUT_BASENAME + "." + format.getExtension())
+                .contentType(format.getMediaType())
+                .body(body);
+    }
+
+    private StreamingResponseBody pdfBody(ReportData reportData, CancellationToken cancellation) {
+        // generate before the response is committed so failures still map to an error status
+        String outputPath;
+        try {
+            outputPath = pdfGenerator.generatePdf(reportData, GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation));
+        } catch (GenerationCancelledException | SchemaViolationException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to generate PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to generate PDF", e);
+        }
+        return outputStream -> {
+            // deletes the file afterwards if the router picked Jasper, whose output isn't stored
+            try (InputStream in = fileStorageUtil.pdfResource(outputPath).getInputStream()) {
+                in.transferTo(outputStream);
+            }
+        };
+    }
+}
@@ -8,7 +8,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "reports")
+@Table(name = "reports", indexes = {
+        @Index(name = "idx_reports_file_path", columnList = "file_path"),
+        @Index(name = "idx_reports_status_updated_at", columnList = "status, updated_at")
+})
 @Data
 public class Report {
     
@@ -26,6 +29,26 @@ public class Report {
     @Enumerated(EnumType.STRING)
     private ReportStatus status;
 
+    @Column(name = "file_path")
+    private String filePath;
+
+    /**
+     * Number of items already rendered into {@link #filePath}; incremental generation
+     * only renders the items after this index.
+     */
+    @Column(name = "last_rendered_row")
+    private Integer lastRenderedRow;
+
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    /**
+     * SHA-256 of the first {@link #lastRenderedRow} items, to detect rendered items that changed
+     * since; incremental generation then renders the whole report again.
+     */
+    @Column(name = "rendered_items_hash", length = 64)
+    private String renderedItemsHash;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -4,5 +4,6 @@ public enum ReportStatus {
     DRAFT,
     IN_PROGRESS,
     COMPLETED,
-    FAILED
+    FAILED,
+    CANCELLED
 } 
\ No newline at end of file
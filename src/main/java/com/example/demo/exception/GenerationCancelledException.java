@@ -0,0 +1,12 @@
+package com.example.demo.exception;
+
+/**
+ * Thrown at a generation checkpoint once the request's deadline has passed or the request was
+ * cancelled, e.g. because the client disconnected. No PDF is stored for a cancelled report.
+ */
+public class GenerationCancelledException extends PDFGenerationException {
+
+    public GenerationCancelledException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.exception;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+
+import java.util.Map;
+
+@ControllerAdvice
+public class GenerationExceptionHandler {
+
+    /**
+     * Deadline exceeded, client gone or queue full: tell well-behaved clients to back off.
+     */
+    @ExceptionHandler(GenerationCancelledException.class)
+    public ResponseEntity<Map<String, String>> handleCancelled(GenerationCancelledException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", ex.getMessage()));
+    }
+
+    /**
+     * The {@code data} map was rejected before rendering; retrying the same payload won't help.
+     */
+    @ExceptionHandler(SchemaViolationException.class)
+    public ResponseEntity<Map<String, String>> handleSchemaViolation(SchemaViolationException ex) {
+        return ResponseEntity.badRequest().body(Map.of("error", ex.getMessage()));
+    }
+}
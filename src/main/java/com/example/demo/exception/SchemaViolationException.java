@@ -0,0 +1,11 @@
+package com.example.demo.exception;
+
+/**
+ * The report's {@code data} map doesn't fit the template's schema or exceeds the size limits.
+ */
+public class SchemaViolationException extends PDFGenerationException {
+
+    public SchemaViolationException(String message) {
+        super(message);
+    }
+}
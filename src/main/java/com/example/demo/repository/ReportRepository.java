@@ -5,6 +5,7 @@ import com.example.demo.entity.ReportStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +23,10 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     List<Report> findByStatusOrderByCreatedAtDesc(ReportStatus status);
     
     List<Report> findByTitleContainingIgnoreCase(String title);
+
+    boolean existsByFilePath(String filePath);
+
+    Optional<Report> findFirstByFilePath(String filePath);
+
+    List<Report> findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(ReportStatus status, LocalDateTime updatedBefore);
 } 
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.GenerationCancelledException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cooperative cancellation for one generation request, with an optional deadline.
+ * <p>
+ * Generators call {@link #checkpoint(String)} between stages, and register
+ * {@link #onCancel(Runnable) callbacks} for work that can be interrupted from outside, such as a
+ * Jasper fill. A passed deadline counts as cancellation the next time it is checked.
+ */
+@Slf4j
+public final class CancellationToken {
+
+    /**
+     * Never cancelled and without deadline; the default for callers that don't care.
+     */
+    public static final CancellationToken NONE = new CancellationToken(null);
+
+    private final long deadlineNanos;
+    private final Instant deadline;
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+    private volatile String reason;
+
+    private CancellationToken(Duration timeout) {
+        this.deadline = timeout == null ? null : Instant.now().plus(timeout);
+        this.deadlineNanos = timeout == null ? 0 : System.nanoTime() + timeout.toNanos();
+    }
+
+    public static CancellationToken withTimeout(Duration timeout) {
+        return new CancellationToken(timeout);
+    }
+
+    public static CancellationToken create() {
+        return new CancellationToken(null);
+    }
+
+    /**
+     * @return the deadline, or {@code null} if there is none
+     */
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    public void cancel(String reason) {
+        if (this == NONE) {
+            return;
+        }
+        synchronized (this) {
+            if (this.reason != null) {
+                return;
+            }
+            this.reason = reason;
+        }
+        log.debug("Generation cancelled: {}", reason);
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                log.warn("Cancellation callback failed: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        if (reason == null && deadline != null && System.nanoTime() - deadlineNanos >= 0) {
+            cancel("deadline exceeded");
+        }
+        return reason != null;
+    }
+
+    /**
+     * @throws GenerationCancelledException if the request has been cancelled or is past its deadline
+     */
+    public void checkpoint(String stage) {
+        if (isCancelled()) {
+            throw new GenerationCancelledException("Generation cancelled before " + stage + ": " + reason);
+        }
+    }
+
+    /**
+     * Runs {@code callback} on cancellation, or straight away if already cancelled.
+     *
+     * @return a handle that unregisters the callback once the cancellable work is over
+     */
+    public Registration onCancel(Runnable callback) {
+        callbacks.add(callback);
+        if (isCancelled()) {
+            callbacks.remove(callback);
+            callback.run();
+        }
+        return () -> callbacks.remove(callback);
+    }
+
+    /**
+     * Waits for {@code work}, cancelling this token if the deadline passes first. The registered
+     * callbacks are expected to make {@code work} complete promptly once that happens.
+     *
+     * @throws CompletionException wrapping whatever {@code work} failed with
+     */
+    public <T> T await(CompletableFuture<T> work) {
+        if (deadline == null) {
+            return work.join();
+        }
+        try {
+            return work.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            cancel("deadline exceeded");
+            return work.join();
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel("interrupted");
+            throw new GenerationCancelledException("Interrupted while waiting for generation");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
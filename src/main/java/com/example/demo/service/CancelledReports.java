@@ -0,0 +1,49 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.repository.ReportRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Records a cancelled generation under the request's own report id, so callers can look it up.
+ * <p>
+ * Completed reports are stored under a fresh random id, which is what {@code /api/pdf/reports/{id}}
+ * downloads by, so the request's id can only collide with an earlier cancellation of the same
+ * report or with an incrementally generated one. An earlier cancellation is updated in place; a row
+ * that holds a stored PDF is left alone, as its output is still valid.
+ */
+@Slf4j
+final class CancelledReports {
+
+    private CancelledReports() {
+    }
+
+    static void record(ReportRepository reportRepository, ReportData reportData) {
+        String reportId = reportData.getReportId();
+        if (reportId == null || reportId.isBlank()) {
+            reportId = UUID.randomUUID().toString();
+        }
+        Optional<Report> existing = reportRepository.findByReportId(reportId);
+        if (existing.isPresent() && existing.get().getFilePath() != null) {
+            log.debug("Report {} already has stored output, not marking it cancelled", reportId);
+            return;
+        }
+
+        Report report = existing.orElseGet(Report::new);
+        report.setReportId(reportId);
+        report.setTitle(reportData.getTitle());
+        report.setStatus(ReportStatus.CANCELLED);
+        try {
+            reportRepository.save(report);
+        } catch (DataIntegrityViolationException e) {
+            // a concurrent cancellation of the same report recorded it first
+            log.debug("Cancellation of report {} already recorded: {}", reportId, e.getMessage());
+        }
+    }
+}
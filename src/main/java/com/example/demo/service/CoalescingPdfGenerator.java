@@ -0,0 +1,140 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight wrapper around the FreeMarker generator: concurrent requests for the same
+ * template, payload and output profile share one render, one stored file and one {@link
+ * com.example.demo.entity.Report} row, and all receive its path.
+ * <p>
+ * Requests are keyed on their {@link ReportKey}, so field order and map insertion order don't
+ * matter. Only in-flight work is shared; a request arriving after the render finished starts a
+ * new one, whose stored file is then linked to the earlier copy.
+ * <p>
+ * The shared render runs on the first caller's thread under its own cancellation token. A
+ * caller whose deadline passes stops waiting; the render itself is cancelled only once every
+ * caller has given up.
+ */
+@Slf4j
+@Service("coalescingPdfGenerator")
+public class CoalescingPdfGenerator implements IPdfGenerator {
+
+    private static final String TEMPLATE_NAME = "report.ftl";
+
+    private final IPdfGenerator delegate;
+    private final ConcurrentMap<String, Flight> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${pdf.coalescing.enabled:true}")
+    private boolean enabled = true;
+
+    public CoalescingPdfGenerator(@Qualifier("pdfGeneratorService") IPdfGenerator delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
+        if (!enabled) {
+            return delegate.generatePdf(reportData, options);
+        }
+
+        String key = key(reportData, options);
+        Flight created = new Flight();
+        Flight flight = inFlight.compute(key, (k, existing) -> {
+            Flight joined = existing == null || existing.cancellation.isCancelled() ? created : existing;
+            joined.waiters++;
+            return joined;
+        });
+
+        CancellationToken cancellation = options.getCancellation();
+        if (flight == created) {
+            return lead(key, flight, reportData, options);
+        }
+        log.debug("Joining in-flight generation {} for report {}", key, reportData.getReportId());
+        return follow(key, flight, cancellation);
+    }
+
+    private String lead(String key, Flight flight, ReportData reportData, GenerationOptions options) {
+        try (CancellationToken.Registration ignored = options.getCancellation().onCancel(() -> leave(key, flight))) {
+            String path = delegate.generatePdf(reportData,
+                    GenerationOptions.of(options.getOutputProfile(), flight.cancellation));
+            inFlight.remove(key, flight);
+            flight.result.complete(path);
+            return path;
+        } catch (RuntimeException e) {
+            inFlight.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private String follow(String key, Flight flight, CancellationToken cancellation) {
+        // a private view of the shared result, so this caller can give up without failing the others
+        CompletableFuture<String> mine = flight.result.thenApply(path -> path);
+        try (CancellationToken.Registration ignored = cancellation.onCancel(() -> {
+            mine.completeExceptionally(new GenerationCancelledException("Gave up waiting for shared generation"));
+            leave(key, flight);
+        })) {
+            return cancellation.await(mine);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new PDFGenerationException("Shared generation failed", e.getCause());
+        }
+    }
+
+    private void leave(String key, Flight flight) {
+        boolean[] abandoned = {false};
+        // on the same map bin as joining, so nobody can join between the last caller leaving and the removal
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current != flight || --flight.waiters > 0) {
+                return current;
+            }
+            abandoned[0] = true;
+            return null;
+        });
+        if (abandoned[0]) {
+            log.debug("All callers of generation {} gave up, cancelling it", key);
+            // outside the bin, as cancel callbacks run arbitrary code
+            flight.cancellation.cancel("all callers cancelled");
+        }
+    }
+
+    String key(ReportData reportData, GenerationOptions options) {
+        return ReportKey.of(TEMPLATE_NAME, options.getOutputProfile(), reportData);
+    }
+
+    /**
+     * Callers currently waiting on shared renders, for tests.
+     */
+    int waiters() {
+        int waiters = 0;
+        for (Flight flight : inFlight.values()) {
+            waiters += flight.waiters;
+        }
+        return waiters;
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final CancellationToken cancellation = CancellationToken.create();
+        // only changed inside inFlight.compute* for the flight's key
+        private volatile int waiters;
+    }
+}
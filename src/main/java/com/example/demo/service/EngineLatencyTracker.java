@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an exponentially weighted moving average of generation latency per engine,
+ * bucketed by the power-of-two size class of the item count so small and large
+ * reports don't blur into a single number.
+ */
+@Slf4j
+@Component
+public class EngineLatencyTracker {
+
+    private static final double ALPHA = 0.2;
+
+    private final Map<PdfEngine, Map<Integer, Stats>> stats = new EnumMap<>(PdfEngine.class);
+
+    public EngineLatencyTracker() {
+        for (PdfEngine engine : PdfEngine.values()) {
+            stats.put(engine, new ConcurrentHashMap<>());
+        }
+    }
+
+    public void record(PdfEngine engine, int itemCount, long elapsedNanos) {
+        double elapsedMillis = elapsedNanos / 1_000_000.0;
+        stats.get(engine)
+                .computeIfAbsent(bucket(itemCount), b -> new Stats())
+                .add(elapsedMillis);
+        log.trace("Recorded {} latency {} ms for {} items", engine, elapsedMillis, itemCount);
+    }
+
+    /**
+     * @return the average latency in milliseconds for the item count's size class, or
+     *         {@code -1} if fewer than {@code minSamples} measurements have been taken
+     */
+    public double averageMillis(PdfEngine engine, int itemCount, int minSamples) {
+        Stats bucketStats = stats.get(engine).get(bucket(itemCount));
+        if (bucketStats == null) {
+            return -1;
+        }
+        return bucketStats.average(minSamples);
+    }
+
+    static int bucket(int itemCount) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(itemCount, 0));
+    }
+
+    private static final class Stats {
+        private long samples;
+        private double ewma;
+
+        synchronized void add(double value) {
+            ewma = samples == 0 ? value : ALPHA * value + (1 - ALPHA) * ewma;
+            samples++;
+        }
+
+        synchronized double average(int minSamples) {
+            return samples < minSamples ? -1 : ewma;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.service;
+
+import lombok.Data;
+
+/**
+ * Per-request knobs for {@link IPdfGenerator} that are not part of the report payload itself.
+ */
+@Data
+public class GenerationOptions {
+
+    private PdfOutputProfile outputProfile = PdfOutputProfile.DEFAULT;
+
+    /**
+     * Deadline and cancellation signal of the request; generators check it between stages.
+     */
+    private CancellationToken cancellation = CancellationToken.NONE;
+
+    public static GenerationOptions defaults() {
+        return new GenerationOptions();
+    }
+
+    public static GenerationOptions of(PdfOutputProfile outputProfile) {
+        GenerationOptions options = new GenerationOptions();
+        options.setOutputProfile(outputProfile == null ? PdfOutputProfile.DEFAULT : outputProfile);
+        return options;
+    }
+
+    public static GenerationOptions of(PdfOutputProfile outputProfile, CancellationToken cancellation) {
+        GenerationOptions options = of(outputProfile);
+        options.setCancellation(cancellation == null ? CancellationToken.NONE : cancellation);
+        return options;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.util.SyntheticReports;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+
+/**
+ * Renders a synthetic report through both engines once the context is up, so class loading,
+ * template compilation and JIT warm-up happen before real traffic arrives. Nothing is stored
+ * and no report rows are written. The {@code warmup} health indicator keeps the readiness
+ * probe down until this has finished.
+ * <p>
+ * With {@code pdf.warmup.exit-when-done} the application shuts down afterwards, which is how
+ * the {@code cds} build profile trains its class data sharing archive.
+ */
+@Slf4j
+@Lazy(false)
+@Service
+public class GeneratorWarmupService {
+
+    private static final String BASIC_REPORT_TEMPLATE_NAME = "report.ftl";
+
+    private final PdfGeneratorService pdfGeneratorService;
+    private final IPdfGenerator jasperPdfService;
+    private final ApplicationContext applicationContext;
+
+    @Value("${pdf.warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${pdf.warmup.iterations:3}")
+    private int iterations = 3;
+
+    @Value("${pdf.warmup.items:200}")
+    private int items = 200;
+
+    @Value("${pdf.warmup.exit-when-done:false}")
+    private boolean exitWhenDone;
+
+    private volatile boolean complete;
+
+    public GeneratorWarmupService(PdfGeneratorService pdfGeneratorService,
+                                  @Qualifier("jasperPdfService") IPdfGenerator jasperPdfService,
+                                  ApplicationContext applicationContext) {
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.jasperPdfService = jasperPdfService;
+        this.applicationContext = applicationContext;
+    }
+
+    @PostConstruct
+    void validate() {
+        if (enabled && iterations < 1) {
+            throw new IllegalStateException("pdf.warmup.iterations must be at least 1, was " + iterations
+                    + "; set pdf.warmup.enabled=false to skip the warm-up");
+        }
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "generator-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        ReportData reportData = syntheticReport();
+        try {
+            long[] freemarker = new long[iterations];
+            long[] jasper = new long[iterations];
+            for (int i = 0; i < iterations; i++) {
+                long t0 = System.nanoTime();
+                pdfGeneratorService.renderPdf(BASIC_REPORT_TEMPLATE_NAME, reportData).close();
+                long t1 = System.nanoTime();
+                Files.deleteIfExists(Path.of(jasperPdfService.generatePdf(reportData)));
+                long t2 = System.nanoTime();
+                freemarker[i] = (t1 - t0) / 1_000_000;
+                jasper[i] = (t2 - t1) / 1_000_000;
+            }
+            log.info("Generator warm-up finished in {} ms: freemarker first/last {}/{} ms, jasper first/last {}/{} ms",
+                    (System.nanoTime() - start) / 1_000_000,
+                    freemarker[0], freemarker[iterations - 1], jasper[0], jasper[iterations - 1]);
+        } catch (IOException | RuntimeException e) {
+            // a failed warm-up only costs latency, it must not keep the instance out of rotation
+            log.warn("Generator warm-up failed, continuing cold: {}", e.getMessage(), e);
+        } finally {
+            complete = true;
+            log.info("Ready to serve {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        if (exitWhenDone) {
+            log.info("Warm-up done, shutting down as requested by pdf.warmup.exit-when-done");
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private ReportData syntheticReport() {
+        ReportData reportData = SyntheticReports.of("WARMUP", "Warm-up Report", items);
+        reportData.setData(new HashMap<>());
+        return reportData;
+    }
+}
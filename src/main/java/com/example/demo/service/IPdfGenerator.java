@@ -10,5 +10,12 @@ public interface IPdfGenerator {
 
     public String generatePdf(ReportData reportData);
 
+    /**
+     * Generates the PDF honouring the per-request options. Generators that have no use
+     * for the options fall back to {@link #generatePdf(ReportData)}.
+     */
+    default String generatePdf(ReportData reportData, GenerationOptions options) {
+        return generatePdf(reportData);
+    }
 
-}
\ No newline at end of file
+}
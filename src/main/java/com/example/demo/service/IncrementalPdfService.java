@@ -0,0 +1,424 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Rectangle;
+import com.lowagie.text.pdf.BaseFont;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfContentByte;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfIndirectReference;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfStamper;
+import com.lowagie.text.pdf.PdfStream;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Generates ever-growing reports (daily ledgers and the like) incrementally.
+ * <p>
+ * The first call for a {@code reportId} renders and stores the whole document. Later calls
+ * render only the items after {@link Report#getLastRenderedRow()} and append them as new pages
+ * with an incremental update written in place at the end of the stored file, so the write cost
+ * scales with the delta rather than the total. Earlier pages are left untouched: their
+ * "page n of m" footers draw the total from one shared form XObject, and only that object is
+ * rewritten by each append. If the items already rendered have changed since, the whole report
+ * is rendered again.
+ * <p>
+ * Appends to the same report are serialized in this JVM and, through a lock on the stored file,
+ * across nodes sharing the storage.
+ */
+@Slf4j
+@Service("incrementalPdfService")
+public class IncrementalPdfService implements IPdfGenerator {
+
+    private static final String BASIC_REPORT_TEMPLATE_NAME = "report.ftl";
+    private static final String CONTINUATION_TEMPLATE_NAME = "report-continuation.ftl";
+
+    private static final String FOOTER_TEXT = "This is a sample report generated using FreeMarker and OpenPDF";
+    private static final float FOOTER_FONT_SIZE = 8;
+    private static final float FOOTER_MARGIN = 36;
+    private static final float FOOTER_BASELINE = 15;
+
+    /**
+     * Resource name of the form XObject holding the page total, and the room left for it.
+     */
+    private static final String PAGE_TOTAL_NAME = "PageTotal";
+    private static final PdfName PAGE_TOTAL = new PdfName(PAGE_TOTAL_NAME);
+    private static final float PAGE_TOTAL_WIDTH = 30;
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final PdfGeneratorService pdfGeneratorService;
+    private final FileStorageUtil fileStorageUtil;
+    private final ReportRepository reportRepository;
+    private final PdfBufferFactory pdfBufferFactory;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    public IncrementalPdfService(PdfGeneratorService pdfGeneratorService,
+                                 FileStorageUtil fileStorageUtil,
+                                 ReportRepository reportRepository,
+                                 PdfBufferFactory pdfBufferFactory) {
+        this.pdfGeneratorService = pdfGeneratorService;
+        this.fileStorageUtil = fileStorageUtil;
+        this.reportRepository = reportRepository;
+        this.pdfBufferFactory = pdfBufferFactory;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Brings the stored PDF for {@code reportData.reportId} up to date with its items.
+     *
+     * @param reportData the full, grown dataset
+     * @return the path of the stored PDF
+     * @throws PDFGenerationException if rendering or appending fails
+     */
+    @Override
+    public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    /**
+     * Same as {@link #generatePdf(ReportData)}. The request can be cancelled until the stored PDF is
+     * written; once writing has started it runs to the end, so the file is never left half updated.
+     * The output profile is ignored, as appended revisions must match the stored document.
+     * <p>
+     * A cancelled request is recorded as {@code CANCELLED} only while the report has nothing stored;
+     * a cancelled append leaves the row as it was, since the stored PDF and its rendered-row count
+     * are still valid.
+     */
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
+        CancellationToken cancellation = options.getCancellation();
+        try {
+            return generateLocked(reportData, cancellation);
+        } catch (GenerationCancelledException e) {
+            log.info("Incremental generation for {} cancelled: {}", reportData.getReportId(), e.getMessage());
+            CancelledReports.record(reportRepository, reportData);
+            throw e;
+        }
+    }
+
+    private String generateLocked(ReportData reportData, CancellationToken cancellation) {
+        synchronized (lockFor(reportData.getReportId())) {
+            cancellation.checkpoint("start");
+            Optional<Report> existing = reportRepository.findByReportId(reportData.getReportId());
+            if (existing.isEmpty() || existing.get().getFilePath() == null
+                    || !Files.exists(Path.of(existing.get().getFilePath()))) {
+                return renderFull(existing.orElseGet(Report::new), reportData, cancellation);
+            }
+
+            Path target = Path.of(existing.get().getFilePath());
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                // another node may have appended while this one waited for the lock
+                Report report = reportRepository.findByReportId(reportData.getReportId()).orElse(existing.get());
+                return appendNewItems(report, reportData, target, channel, cancellation);
+            } catch (IOException e) {
+                log.error("Failed to append to report {}: {}", reportData.getReportId(), e.getMessage(), e);
+                throw new PDFGenerationException("Failed to append to PDF", e);
+            }
+        }
+    }
+
+    private String renderFull(Report report, ReportData reportData, CancellationToken cancellation) {
+        log.info("Rendering all {} items of report {}", reportData.getItems().size(), reportData.getReportId());
+
+        Map<String, Object> model = pdfGeneratorService.templateModel(BASIC_REPORT_TEMPLATE_NAME, reportData);
+        model.put("footerStamped", true);
+        try (PdfBuffer pdfContent = pdfGeneratorService.renderPdf(BASIC_REPORT_TEMPLATE_NAME, model, cancellation);
+             PdfBuffer numbered = pdfBufferFactory.create()) {
+            cancellation.checkpoint("saving the PDF");
+            PdfReader reader = PdfOutputOptimizer.openReader(pdfContent);
+            PdfStamper stamper = new PdfStamper(reader, numbered.outputStream());
+            int pageCount = reader.getNumberOfPages();
+            PdfIndirectReference total = stamper.getWriter().addToBody(pageTotalForm(stamper.getWriter(), pageCount)).getIndirectReference();
+            BaseFont font = footerFont();
+            for (int page = 1; page <= pageCount; page++) {
+                addPageTotal(reader.getPageN(page), total);
+                stampFooter(stamper.getOverContent(page), reader.getPageSizeWithRotation(page), page, font);
+            }
+            stamper.close();
+            reader.close();
+
+            // the report id comes from the request, so it stays out of the file name
+            String fileName = String.format("%s_%s.pdf", BASIC_REPORT_TEMPLATE_NAME, UUID.randomUUID());
+            String savedPath = fileStorageUtil.saveAppendablePdf(numbered, fileName);
+
+            report.setReportId(reportData.getReportId());
+            report.setTitle(reportData.getTitle());
+            report.setStatus(ReportStatus.COMPLETED);
+            report.setFilePath(savedPath);
+            report.setLastRenderedRow(reportData.getItems().size());
+            report.setRenderedItemsHash(itemsHash(reportData.getItems()));
+            report.setPageCount(pageCount);
+            reportRepository.save(report);
+
+            log.info("Rendered report {} with {} pages to {}", report.getReportId(), pageCount, savedPath);
+            return savedPath;
+        } catch (IOException | DocumentException e) {
+            log.error("Failed to store PDF for report {}: {}", reportData.getReportId(), e.getMessage(), e);
+            throw new PDFGenerationException("Failed to store PDF", e);
+        }
+    }
+
+    private String appendNewItems(Report report, ReportData reportData, Path target, FileChannel channel,
+                                  CancellationToken cancellation) throws IOException {
+        List<ReportItem> items = reportData.getItems();
+        int from = report.getLastRenderedRow() == null ? 0 : report.getLastRenderedRow();
+        if (items.size() < from || !renderedItemsUnchanged(report, items, from)) {
+            log.warn("Items already rendered into report {} have changed, rendering it again", report.getReportId());
+            return renderFull(report, reportData, cancellation);
+        }
+        if (items.size() == from) {
+            log.info("Report {} already covers {} items, nothing to append", report.getReportId(), from);
+            return report.getFilePath();
+        }
+
+        List<ReportItem> delta = new ArrayList<>(items.subList(from, items.size()));
+        log.info("Appending items {}..{} to report {}", from, items.size() - 1, report.getReportId());
+
+        Map<String, Object> model = new HashMap<>();
+        model.put("title", reportData.getTitle());
+        model.put("items", delta);
+        int pageCount;
+        try (PdfBuffer deltaPdf = pdfGeneratorService.renderPdf(CONTINUATION_TEMPLATE_NAME, model, cancellation)) {
+            cancellation.checkpoint("appending the PDF");
+            pageCount = appendPages(target, channel, deltaPdf);
+        } catch (DocumentException e) {
+            log.error("Failed to append to report {}: {}", report.getReportId(), e.getMessage(), e);
+            throw new PDFGenerationException("Failed to append to PDF", e);
+        }
+        if (pageCount < 0) {
+            log.warn("Stored PDF of report {} has no shared page total, rendering it again", report.getReportId());
+            return renderFull(report, reportData, cancellation);
+        }
+
+        report.setLastRenderedRow(items.size());
+        report.setRenderedItemsHash(itemsHash(items));
+        report.setPageCount(pageCount);
+        report.setStatus(ReportStatus.COMPLETED);
+        reportRepository.save(report);
+
+        log.info("Appended {} items to report {}, now {} pages", delta.size(), report.getReportId(), pageCount);
+        return report.getFilePath();
+    }
+
+    /**
+     * Adds the pages of {@code deltaPdf} to {@code target} as an incremental update. The stamper
+     * streams the original bytes through unchanged, so only what follows them is written, at the
+     * end of the file. On failure the file is truncated back to its original length.
+     *
+     * @return the total page count of the appended document, or {@code -1} if {@code target}
+     *         was not stored with a shared page total and nothing was appended
+     */
+    private int appendPages(Path target, FileChannel channel, PdfBuffer deltaPdf) throws IOException, DocumentException {
+        long originalSize = channel.size();
+        PdfReader deltaReader = PdfOutputOptimizer.openReader(deltaPdf);
+        // partial read: only the xref and page tree of the existing document are parsed
+        PdfReader existingReader = new PdfReader(new RandomAccessFileOrArray(target.toString(), false, true), null);
+        try {
+            PdfObject total = pageTotalReference(existingReader);
+            if (!(total instanceof PdfIndirectReference totalReference)) {
+                return -1;
+            }
+            PdfStamper stamper = new PdfStamper(existingReader, new UpdateSectionOutputStream(channel, originalSize), '\0', true);
+            int basePages = existingReader.getNumberOfPages();
+            int deltaPages = deltaReader.getNumberOfPages();
+            BaseFont font = footerFont();
+            for (int i = 1; i <= deltaPages; i++) {
+                Rectangle size = deltaReader.getPageSizeWithRotation(i);
+                int page = basePages + i;
+                stamper.insertPage(page, size);
+                addPageTotal(existingReader.getPageN(page), totalReference);
+                stamper.getUnderContent(page).addTemplate(stamper.getImportedPage(deltaReader, i), 0, 0);
+                stampFooter(stamper.getOverContent(page), size, page, font);
+            }
+            // every page, old and new, draws this object, so rewriting it updates all the totals
+            stamper.getWriter().addToBody(pageTotalForm(stamper.getWriter(), basePages + deltaPages), totalReference.getNumber());
+            stamper.close();
+            return basePages + deltaPages;
+        } catch (IOException | RuntimeException e) {
+            channel.truncate(originalSize);
+            throw e;
+        } finally {
+            existingReader.close();
+            deltaReader.close();
+        }
+    }
+
+    private static PdfObject pageTotalReference(PdfReader reader) {
+        PdfDictionary resources = reader.getPageN(1).getAsDict(PdfName.RESOURCES);
+        PdfDictionary xObjects = resources == null ? null : resources.getAsDict(PdfName.XOBJECT);
+        return xObjects == null ? null : xObjects.get(PAGE_TOTAL);
+    }
+
+    /**
+     * Makes the page total available to the page under {@link #PAGE_TOTAL}. Must happen before the
+     * stamper first touches the page's content, which is when it reads the page's resources.
+     */
+    private static void addPageTotal(PdfDictionary page, PdfIndirectReference total) {
+        // copied, so the change lives in the page dictionary even where resources are shared between pages
+        PdfDictionary resources = new PdfDictionary();
+        PdfDictionary currentResources = page.getAsDict(PdfName.RESOURCES);
+        if (currentResources != null) {
+            resources.merge(currentResources);
+        }
+        PdfDictionary xObjects = new PdfDictionary();
+        PdfDictionary currentXObjects = resources.getAsDict(PdfName.XOBJECT);
+        if (currentXObjects != null) {
+            xObjects.merge(currentXObjects);
+        }
+        xObjects.put(PAGE_TOTAL, total);
+        resources.put(PdfName.XOBJECT, xObjects);
+        page.put(PdfName.RESOURCES, resources);
+    }
+
+    /**
+     * A form XObject that draws just the page count.
+     */
+    private static PdfStream pageTotalForm(PdfWriter writer, int pageCount) throws IOException {
+        PdfDictionary font = new PdfDictionary(PdfName.FONT);
+        font.put(PdfName.SUBTYPE, PdfName.TYPE1);
+        font.put(PdfName.BASEFONT, PdfName.HELVETICA);
+        font.put(PdfName.ENCODING, PdfName.WIN_ANSI_ENCODING);
+        PdfDictionary fonts = new PdfDictionary();
+        // readers, OpenPDF's text extractor among them, expect font resources to be indirect
+        fonts.put(new PdfName("F1"), writer.addToBody(font).getIndirectReference());
+        PdfDictionary resources = new PdfDictionary();
+        resources.put(PdfName.FONT, fonts);
+
+        String content = String.format(Locale.ROOT, "BT /F1 %.0f Tf 0 0 Td (%d) Tj ET", FOOTER_FONT_SIZE, pageCount);
+        PdfStream form = new PdfStream(content.getBytes(StandardCharsets.US_ASCII));
+        form.put(PdfName.TYPE, PdfName.XOBJECT);
+        form.put(PdfName.SUBTYPE, PdfName.FORM);
+        form.put(PdfName.BBOX, new PdfArray(new float[] {0, -FOOTER_FONT_SIZE / 2, PAGE_TOTAL_WIDTH, FOOTER_FONT_SIZE}));
+        form.put(PdfName.RESOURCES, resources);
+        return form;
+    }
+
+    /**
+     * Draws the footer text on the left and "Page n of" followed by the shared page total on the right.
+     */
+    private static void stampFooter(PdfContentByte canvas, Rectangle pageSize, int page, BaseFont font) {
+        float totalX = pageSize.getWidth() - FOOTER_MARGIN - PAGE_TOTAL_WIDTH;
+        canvas.beginText();
+        canvas.setFontAndSize(font, FOOTER_FONT_SIZE);
+        canvas.showTextAligned(PdfContentByte.ALIGN_LEFT, FOOTER_TEXT, FOOTER_MARGIN, FOOTER_BASELINE, 0);
+        canvas.showTextAligned(PdfContentByte.ALIGN_RIGHT, "Page " + page + " of ", totalX, FOOTER_BASELINE, 0);
+        canvas.endText();
+        canvas.setLiteral(String.format(Locale.ROOT, "q 1 0 0 1 %.2f %.2f cm /%s Do Q\n",
+                totalX, FOOTER_BASELINE, PAGE_TOTAL_NAME));
+    }
+
+    private static BaseFont footerFont() throws IOException, DocumentException {
+        return BaseFont.createFont(BaseFont.HELVETICA, BaseFont.WINANSI, BaseFont.NOT_EMBEDDED);
+    }
+
+    private static boolean renderedItemsUnchanged(Report report, List<ReportItem> items, int rendered) {
+        // reports stored before the hash was recorded can't be checked
+        return report.getRenderedItemsHash() == null
+                || report.getRenderedItemsHash().equals(itemsHash(items.subList(0, rendered)));
+    }
+
+    static String itemsHash(List<ReportItem> items) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        for (ReportItem item : items) {
+            update(digest, item.getName());
+            update(digest, item.getDescription());
+            update(digest, item.getValue());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(ByteBuffer.allocate(4).putInt(-1).array());
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        // length-prefixed, so ("ab", "c") and ("a", "bc") don't collide
+        digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private Object lockFor(String reportId) {
+        return locks[Math.floorMod(reportId.hashCode(), LOCK_STRIPES)];
+    }
+
+    /**
+     * Receives the whole document from an append-mode stamper, which starts by copying the
+     * original file, and writes only the bytes after that copy to the end of the stored file.
+     */
+    private static final class UpdateSectionOutputStream extends OutputStream {
+
+        private final FileChannel channel;
+        private final long originalSize;
+        private long position;
+
+        UpdateSectionOutputStream(FileChannel channel, long originalSize) {
+            this.channel = channel;
+            this.originalSize = originalSize;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            long end = position + len;
+            if (end > originalSize) {
+                int skip = (int) Math.max(0, originalSize - position);
+                ByteBuffer source = ByteBuffer.wrap(b, off + skip, len - skip);
+                long at = position + skip;
+                while (source.hasRemaining()) {
+                    at += channel.write(source, at);
+                }
+            }
+            position = end;
+        }
+    }
+}
@@ -1,55 +1,96 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.ReportData;
-import com.example.demo.dto.ReportItem;
+import com.example.demo.exception.GenerationCancelledException;
 import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.service.schema.DataRow;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.service.schema.ReportItemDataSource;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.ReportDataLogSummary;
 import lombok.extern.slf4j.Slf4j;
 import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import net.sf.jasperreports.export.type.PdfVersionEnum;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @Service("jasperPdfService")
 public class JasperPdfService implements IPdfGenerator {
 
+    private static final String TEMPLATE_PATH = "reports/sample-report.jrxml";
+
+    private static final String TEMPLATE_NAME = "sample-report.jrxml";
+
+    private final PdfOutputOptimizer pdfOutputOptimizer;
+    private final ParallelJasperExporter parallelJasperExporter;
+    private final DataSchemaRegistry dataSchemaRegistry;
+    private final FileStorageUtil fileStorageUtil;
+
+    /**
+     * Compiled reports by template and data schema version; compiling generates and loads Java classes.
+     */
+    private final ConcurrentMap<String, JasperReport> compiledReports = new ConcurrentHashMap<>();
+
+    /**
+     * Reports with at least this many items are filled and exported through the pipelined exporter.
+     */
+    @Value("${pdf.jasper.parallel.min-items:2000}")
+    private int parallelMinItems = 2000;
+
+    public JasperPdfService(PdfOutputOptimizer pdfOutputOptimizer, ParallelJasperExporter parallelJasperExporter,
+                            DataSchemaRegistry dataSchemaRegistry, FileStorageUtil fileStorageUtil) {
+        this.pdfOutputOptimizer = pdfOutputOptimizer;
+        this.parallelJasperExporter = parallelJasperExporter;
+        this.dataSchemaRegistry = dataSchemaRegistry;
+        this.fileStorageUtil = fileStorageUtil;
+    }
+
     @Override
     public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
+        PdfOutputProfile profile = options.getOutputProfile();
+        CancellationToken cancellation = options.getCancellation();
         log.info("Starting PDF generation for report with ID: {}", reportData.getReportId());
-        log.debug("Report data: title={}, items count={}", reportData.getTitle(), reportData.getItems().size());
+        log.debug("Report data: {}", ReportDataLogSummary.of(reportData));
         
+        File tempFile = null;
+        boolean completed = false;
         try {
-            // Load the JRXML template
-            String templatePath = "reports/sample-report.jrxml";
-            log.debug("Loading JRXML template from: {}", templatePath);
-            
-            JasperReport jasperReport = JasperCompileManager.compileReport(
-                    getClass().getClassLoader().getResourceAsStream(templatePath));
-            log.debug("Successfully compiled JRXML template");
-
-            // Convert ReportData items to a list of maps
-            log.debug("Converting ReportData items to list of maps");
-            List<Map<String, Object>> dataList = new ArrayList<>();
-            for (ReportItem item : reportData.getItems()) {
-                Map<String, Object> row = new HashMap<>();
-                row.put("name", item.getName());
-                row.put("description", item.getDescription());
-                row.put("value", item.getValue());
-                dataList.add(row);
-                log.trace("Added item to data list: name={}, description={}, value={}", 
-                    item.getName(), item.getDescription(), item.getValue());
-            }
-            log.debug("Converted {} items to data list", dataList.size());
+            // rejects oversized or ill-typed data before any work is done
+            DataRow data = dataSchemaRegistry.bind(TEMPLATE_NAME, reportData.getData());
+            cancellation.checkpoint("compiling the template");
+            JasperReport jasperReport = compiledReport();
 
-            // Create the data source
-            log.debug("Creating JRBeanCollectionDataSource");
-            JRBeanCollectionDataSource dataSource = new JRBeanCollectionDataSource(dataList);
+            // items are read in place, through accessors resolved once per field
+            JRDataSource dataSource = new ReportItemDataSource(reportData.getItems(), data);
+            int itemCount = reportData.getItems().size();
+            log.debug("Filling report with {} items", itemCount);
 
             // Set parameters
             log.debug("Setting report parameters");
@@ -57,25 +98,148 @@ public class JasperPdfService implements IPdfGenerator {
             parameters.put("REPORT_TITLE", reportData.getTitle());
             parameters.put("REPORT_ID", reportData.getReportId());
             parameters.put("GENERATED_DATE", new Date());
-            log.trace("Report parameters: title={}, id={}, generatedDate={}", 
-                reportData.getTitle(), reportData.getReportId(), new Date());
+            log.trace("Report parameters: {}", parameters.keySet());
 
-            // Create a temporary file for the PDF
+            // Create a temporary file for the PDF; it is deleted once streamed back
             log.debug("Creating temporary file for PDF output");
-            File tempFile = File.createTempFile("report", ".pdf");
+            tempFile = fileStorageUtil.createTempPdf().toFile();
             log.debug("Temporary file created at: {}", tempFile.getAbsolutePath());
 
             // Fill the report and export to PDF
-            log.debug("Filling report with data");
-            JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
-            log.debug("Exporting report to PDF");
-            JasperExportManager.exportReportToPdfFile(jasperPrint, tempFile.getAbsolutePath());
+            if (itemCount >= parallelMinItems) {
+                log.debug("Filling and exporting report in parallel with output profile {}", profile);
+                try (OutputStream outputStream = Files.newOutputStream(tempFile.toPath())) {
+                    parallelJasperExporter.fillAndExport(jasperReport, parameters, dataSource,
+                            exporterConfiguration(profile), profile, outputStream, cancellation);
+                }
+                if (profile.requiresPostProcessing()) {
+                    cancellation.checkpoint("optimization");
+                    optimizeInPlace(tempFile, profile);
+                }
+            } else {
+                log.debug("Filling report with data");
+                JasperPrint jasperPrint = fill(jasperReport, parameters, dataSource, cancellation);
+                cancellation.checkpoint("exporting the PDF");
+                log.debug("Exporting report to PDF with output profile {}", profile);
+                exportToPdf(jasperPrint, tempFile, profile);
+            }
             log.info("PDF generation completed successfully. Output file: {}", tempFile.getAbsolutePath());
 
+            completed = true;
             return tempFile.getAbsolutePath();
+        } catch (GenerationCancelledException e) {
+            log.info("PDF generation for {} cancelled: {}", reportData.getReportId(), e.getMessage());
+            throw e;
+        } catch (SchemaViolationException e) {
+            log.info("Rejected data of report {}: {}", reportData.getReportId(), e.getMessage());
+            throw e;
         } catch (Exception e) {
             log.error("Error generating PDF: {}", e.getMessage(), e);
             throw new PDFGenerationException("Failed to generate PDF using JasperReports", e);
+        } finally {
+            // only a returned file is streamed back and deleted; on any failure nobody else will
+            if (!completed) {
+                deleteQuietly(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Drops the compiled report of {@code template}, all schema versions, so the next request recompiles it.
+     */
+    public void evictCompiled(String template) {
+        compiledReports.keySet().removeIf(key -> key.equals(template) || key.startsWith(template + "@"));
+    }
+
+    private JasperReport compiledReport() {
+        return compiledReports.computeIfAbsent(dataSchemaRegistry.cacheKey(TEMPLATE_NAME), key -> {
+            log.debug("Compiling JRXML template {} for {}", TEMPLATE_PATH, key);
+            try (InputStream in = getClass().getClassLoader().getResourceAsStream(TEMPLATE_PATH)) {
+                return JasperCompileManager.compileReport(in);
+            } catch (Exception e) {
+                throw new PDFGenerationException("Failed to compile " + TEMPLATE_PATH, e);
+            }
+        });
+    }
+
+    /**
+     * Fills synchronously, or, when the request can be cancelled, through an asynchronous fill
+     * handle so that cancellation stops the fill instead of waiting for it to finish.
+     */
+    private JasperPrint fill(JasperReport jasperReport, Map<String, Object> parameters,
+                             JRDataSource dataSource, CancellationToken cancellation) throws JRException {
+        cancellation.checkpoint("filling the report");
+        if (cancellation == CancellationToken.NONE) {
+            return JasperFillManager.fillReport(jasperReport, parameters, dataSource);
+        }
+
+        AsynchronousFillHandle handle = AsynchronousFillHandle.createHandle(jasperReport, parameters, dataSource);
+        CompletableFuture<JasperPrint> filled = new CompletableFuture<>();
+        handle.addListener(new AsynchronousFilllListener() {
+            @Override
+            public void reportFinished(JasperPrint jasperPrint) {
+                filled.complete(jasperPrint);
+            }
+
+            @Override
+            public void reportCancelled() {
+                filled.completeExceptionally(new CancellationException("Report fill was cancelled"));
+            }
+
+            @Override
+            public void reportFillError(Throwable t) {
+                filled.completeExceptionally(t);
+            }
+        });
+        try (CancellationToken.Registration ignored =
+                     cancellation.onCancel(() -> ParallelJasperExporter.cancelFill(handle, filled))) {
+            handle.startFill();
+            return cancellation.await(filled);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw new GenerationCancelledException(e.getCause().getMessage());
+            }
+            throw new PDFGenerationException("Failed to fill report", e.getCause());
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (file != null && file.exists() && !file.delete()) {
+            log.warn("Could not delete temp file {}", file);
+        }
+    }
+
+    private void exportToPdf(JasperPrint jasperPrint, File outputFile, PdfOutputProfile profile) throws Exception {
+        if (profile == PdfOutputProfile.DEFAULT) {
+            JasperExportManager.exportReportToPdfFile(jasperPrint, outputFile.getAbsolutePath());
+            return;
+        }
+
+        JRPdfExporter exporter = new JRPdfExporter();
+        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputFile));
+        exporter.setConfiguration(exporterConfiguration(profile));
+        exporter.exportReport();
+
+        // the Jasper exporter has no switch for object/xref streams, so those always need the rewrite
+        if (profile.isFullCompression() || profile.requiresPostProcessing()) {
+            optimizeInPlace(outputFile, profile);
+        }
+    }
+
+    private SimplePdfExporterConfiguration exporterConfiguration(PdfOutputProfile profile) {
+        SimplePdfExporterConfiguration configuration = new SimplePdfExporterConfiguration();
+        if (profile != PdfOutputProfile.DEFAULT) {
+            configuration.setCompressed(true);
+            configuration.setPdfVersion(PdfVersionEnum.VERSION_1_5);
+        }
+        return configuration;
+    }
+
+    private void optimizeInPlace(File file, PdfOutputProfile profile) throws Exception {
+        // the optimized copy is complete (and the reader on the original closed) before it replaces the file
+        try (PdfBuffer optimized = pdfOutputOptimizer.optimize(file.toPath(), profile)) {
+            optimized.moveTo(file.toPath());
         }
     }
-} 
\ No newline at end of file
+}
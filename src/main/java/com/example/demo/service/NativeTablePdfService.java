@@ -0,0 +1,81 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.table.TableLayout;
+import com.example.demo.service.table.TableReportWriter;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.ReportDataLogSummary;
+import com.lowagie.text.DocumentException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates tabular reports by drawing the {@link TableLayout#basicReport() basic report table}
+ * directly with OpenPDF instead of going through FreeMarker, XHTML and Flying Saucer layout.
+ * Rows are streamed to the document, so large reports render in flat memory. The free-form
+ * {@code data} map is not rendered.
+ */
+@Slf4j
+@Service("nativeTablePdfService")
+public class NativeTablePdfService implements IPdfGenerator {
+
+    private static final String REPORT_NAME = "native-table";
+
+    private final StoredReports storedReports;
+    private final PdfOutputOptimizer pdfOutputOptimizer;
+    private final PdfBufferFactory pdfBufferFactory;
+    private final TableReportWriter tableReportWriter = new TableReportWriter(TableLayout.basicReport());
+
+    public NativeTablePdfService(FileStorageUtil fileStorageUtil,
+                                 ReportRepository reportRepository,
+                                 PdfOutputOptimizer pdfOutputOptimizer,
+                                 PdfBufferFactory pdfBufferFactory) {
+        this.storedReports = new StoredReports(fileStorageUtil, reportRepository);
+        this.pdfOutputOptimizer = pdfOutputOptimizer;
+        this.pdfBufferFactory = pdfBufferFactory;
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
+        log.info("Starting native table PDF generation for report with ID: {}", reportData.getReportId());
+        log.debug("Report data: {}", ReportDataLogSummary.of(reportData));
+
+        return storedReports.generate(REPORT_NAME, reportData, options, () ->
+                renderPdf(reportData, options.getOutputProfile(), options.getCancellation()));
+    }
+
+    /**
+     * Draws the report without storing it or recording a report.
+     *
+     * @return the PDF, which the caller must close
+     */
+    public PdfBuffer renderPdf(ReportData reportData, PdfOutputProfile profile, CancellationToken cancellation) {
+        PdfBuffer pdfContent = pdfBufferFactory.create();
+        try {
+            tableReportWriter.write(reportData, pdfContent.outputStream(), profile, cancellation);
+        } catch (DocumentException e) {
+            pdfContent.close();
+            log.error("Failed to generate PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to generate PDF", e);
+        } catch (RuntimeException e) {
+            pdfContent.close();
+            throw e;
+        }
+        if (!profile.requiresPostProcessing()) {
+            return pdfContent;
+        }
+        try (PdfBuffer unoptimized = pdfContent) {
+            cancellation.checkpoint("optimization");
+            return pdfOutputOptimizer.optimize(unoptimized, profile);
+        }
+    }
+}
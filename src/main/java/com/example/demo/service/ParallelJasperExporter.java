@@ -0,0 +1,398 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfReader;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import net.sf.jasperreports.engine.JRChart;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRGenericElement;
+import net.sf.jasperreports.engine.JRImage;
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRStyle;
+import net.sf.jasperreports.engine.JRTextField;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
+import net.sf.jasperreports.engine.fill.FillListener;
+import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
+import net.sf.jasperreports.engine.util.JRElementsVisitor;
+import net.sf.jasperreports.engine.util.JRVisitorSupport;
+import net.sf.jasperreports.export.SimpleExporterInput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fills a Jasper report on a background thread and exports it to PDF in page-range chunks
+ * while the fill is still running, then stitches the chunks together in page order. Chunks are
+ * written to {@link PdfBuffer}s, so large exports spill to disk rather than piling up on the heap.
+ * <p>
+ * A chunk is handed to the export pool once the fill has started the page after it, which is
+ * when Jasper has finished writing the chunk's last page. Reports with elements evaluated after
+ * their page is done (evaluation time {@code Report}, {@code Group}, {@code Auto} or
+ * {@code Master}, as in "page X of Y") are filled first and exported in one pass, as their pages
+ * keep changing until the fill ends. If a fill still updates a page that was already exported,
+ * say from inside a subreport or component, the chunked output is discarded and the finished print
+ * is exported in one pass too.
+ */
+@Slf4j
+@Component
+public class ParallelJasperExporter {
+
+    private final int chunkPages;
+    private final ExecutorService executor;
+    private final PdfBufferFactory pdfBufferFactory;
+
+    public ParallelJasperExporter(@Value("${pdf.jasper.parallel.chunk-pages:100}") int chunkPages,
+                                  @Value("${pdf.jasper.parallel.threads:0}") int threads,
+                                  PdfBufferFactory pdfBufferFactory) {
+        this.chunkPages = chunkPages;
+        this.pdfBufferFactory = pdfBufferFactory;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "jasper-export-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Fills the report and writes the PDF to {@code outputStream}.
+     *
+     * @return the filled print
+     */
+    public JasperPrint fillAndExport(JasperReport jasperReport,
+                                     Map<String, Object> parameters,
+                                     JRDataSource dataSource,
+                                     SimplePdfExporterConfiguration configuration,
+                                     PdfOutputProfile profile,
+                                     OutputStream outputStream) throws JRException {
+        return fillAndExport(jasperReport, parameters, dataSource, configuration, profile, outputStream,
+                CancellationToken.NONE);
+    }
+
+    /**
+     * Same as above; cancelling the token stops the fill and drops the chunks not yet exported.
+     *
+     * @throws GenerationCancelledException if the token was cancelled or its deadline passed
+     */
+    public JasperPrint fillAndExport(JasperReport jasperReport,
+                                     Map<String, Object> parameters,
+                                     JRDataSource dataSource,
+                                     SimplePdfExporterConfiguration configuration,
+                                     PdfOutputProfile profile,
+                                     OutputStream outputStream,
+                                     CancellationToken cancellation) throws JRException {
+        cancellation.checkpoint("filling the report");
+        AsynchronousFillHandle handle = AsynchronousFillHandle.createHandle(jasperReport, parameters, dataSource);
+        Pipeline pipeline = new Pipeline(configuration, !updatesEarlierPages(jasperReport));
+        handle.addListener(pipeline);
+        handle.addFillListener(pipeline);
+
+        long start = System.nanoTime();
+        JasperPrint jasperPrint;
+        try (CancellationToken.Registration ignored = cancellation.onCancel(() -> cancelFill(handle, pipeline.filled))) {
+            handle.startFill();
+            jasperPrint = cancellation.await(pipeline.filled);
+        } catch (CompletionException e) {
+            pipeline.discard();
+            throw unwrap(e);
+        }
+        cancellation.checkpoint("stitching exported chunks");
+        log.debug("Fill of {} pages completed in {} ms with {} chunks exported alongside",
+                jasperPrint.getPages().size(), (System.nanoTime() - start) / 1_000_000, pipeline.chunks.size());
+
+        if (!pipeline.exportAlongside || pipeline.stale) {
+            log.debug(pipeline.stale
+                    ? "Pages were updated after export started, exporting the finished print in one pass"
+                    : "Report updates earlier pages, exporting the finished print in one pass");
+            pipeline.discard();
+            try (PdfBuffer whole = pdfBufferFactory.create()) {
+                try (OutputStream wholeOutput = whole.outputStream()) {
+                    export(jasperPrint, configuration, wholeOutput);
+                } catch (IOException e) {
+                    throw new PDFGenerationException("Failed to export report", e);
+                }
+                stitch(List.of(whole), profile, outputStream);
+            }
+            return jasperPrint;
+        }
+
+        List<PdfBuffer> parts = new ArrayList<>(pipeline.chunks.size());
+        try {
+            for (CompletableFuture<PdfBuffer> chunk : pipeline.chunks) {
+                parts.add(chunk.join());
+            }
+            stitch(parts, profile, outputStream);
+        } catch (CompletionException e) {
+            pipeline.discard();
+            throw unwrap(e);
+        } finally {
+            parts.forEach(PdfBuffer::close);
+        }
+        log.debug("Pipelined export finished in {} ms", (System.nanoTime() - start) / 1_000_000);
+        return jasperPrint;
+    }
+
+    /**
+     * Whether filling {@code jasperReport} can change a page after the next one has been started,
+     * which would make chunks exported during the fill out of date.
+     */
+    static boolean updatesEarlierPages(JasperReport jasperReport) {
+        boolean[] delayed = {false};
+        JRElementsVisitor.visitReport(jasperReport, new JRVisitorSupport() {
+            @Override
+            public void visitTextField(JRTextField textField) {
+                check(textField.getEvaluationTimeValue());
+            }
+
+            @Override
+            public void visitImage(JRImage image) {
+                check(image.getEvaluationTimeValue());
+            }
+
+            @Override
+            public void visitChart(JRChart chart) {
+                check(chart.getEvaluationTimeValue());
+            }
+
+            @Override
+            public void visitGenericElement(JRGenericElement element) {
+                check(element.getEvaluationTimeValue());
+            }
+
+            private void check(EvaluationTimeEnum evaluationTime) {
+                // Page, Column and Band are resolved before the next page is started
+                if (evaluationTime == EvaluationTimeEnum.REPORT || evaluationTime == EvaluationTimeEnum.GROUP
+                        || evaluationTime == EvaluationTimeEnum.AUTO || evaluationTime == EvaluationTimeEnum.MASTER) {
+                    delayed[0] = true;
+                }
+            }
+        });
+        return delayed[0];
+    }
+
+    private void stitch(List<PdfBuffer> parts, PdfOutputProfile profile, OutputStream outputStream) {
+        try {
+            Document document = new Document();
+            PdfCopy copy = new PdfCopy(document, outputStream);
+            copy.setCompressionLevel(profile.getCompressionLevel());
+            if (profile.isFullCompression()) {
+                copy.setFullCompression();
+            }
+            document.open();
+            for (PdfBuffer part : parts) {
+                PdfReader reader = PdfOutputOptimizer.openReader(part);
+                for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                    copy.addPage(copy.getImportedPage(reader, page));
+                }
+                copy.freeReader(reader);
+                reader.close();
+            }
+            document.close();
+        } catch (IOException | DocumentException e) {
+            log.error("Failed to stitch exported chunks: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to stitch exported PDF chunks", e);
+        }
+    }
+
+    private PdfBuffer exportChunk(JasperPrint source, List<JRPrintPage> pages,
+                                  SimplePdfExporterConfiguration configuration) throws JRException {
+        PdfBuffer part = pdfBufferFactory.create();
+        try (OutputStream outputStream = part.outputStream()) {
+            export(chunkOf(source, pages), configuration, outputStream);
+            return part;
+        } catch (IOException e) {
+            part.close();
+            throw new PDFGenerationException("Failed to export report pages", e);
+        } catch (RuntimeException | JRException e) {
+            part.close();
+            throw e;
+        }
+    }
+
+    private static void export(JasperPrint jasperPrint, SimplePdfExporterConfiguration configuration,
+                               OutputStream outputStream) throws JRException {
+        JRPdfExporter exporter = new JRPdfExporter();
+        exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
+        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(outputStream));
+        exporter.setConfiguration(configuration);
+        exporter.exportReport();
+    }
+
+    /**
+     * Builds a standalone print holding {@code pages} with the report-level settings of {@code source}.
+     */
+    private static JasperPrint chunkOf(JasperPrint source, List<JRPrintPage> pages) throws JRException {
+        JasperPrint chunk = new JasperPrint();
+        chunk.setName(source.getName());
+        chunk.setPageWidth(source.getPageWidth());
+        chunk.setPageHeight(source.getPageHeight());
+        chunk.setTopMargin(source.getTopMargin());
+        chunk.setLeftMargin(source.getLeftMargin());
+        chunk.setBottomMargin(source.getBottomMargin());
+        chunk.setRightMargin(source.getRightMargin());
+        chunk.setOrientation(source.getOrientationValue());
+        chunk.setLocaleCode(source.getLocaleCode());
+        chunk.setTimeZoneId(source.getTimeZoneId());
+        chunk.setFormatFactoryClass(source.getFormatFactoryClass());
+        for (String name : source.getPropertyNames()) {
+            chunk.setProperty(name, source.getProperty(name));
+        }
+        for (JRStyle style : source.getStyles()) {
+            chunk.addStyle(style, true);
+        }
+        for (JROrigin origin : source.getOrigins()) {
+            chunk.addOrigin(origin);
+        }
+        for (JRPrintPage page : pages) {
+            chunk.addPage(page);
+        }
+        return chunk;
+    }
+
+    /**
+     * Stops a running fill and completes {@code filled} right away, so waiters don't depend on
+     * the fill thread noticing the cancellation.
+     */
+    static void cancelFill(AsynchronousFillHandle handle, CompletableFuture<JasperPrint> filled) {
+        try {
+            handle.cancellFill();
+        } catch (JRException e) {
+            log.warn("Could not cancel report fill: {}", e.getMessage());
+        }
+        filled.completeExceptionally(new CancellationException("Report fill was cancelled"));
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof CancellationException) {
+            return new GenerationCancelledException(cause.getMessage());
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new PDFGenerationException("Failed to fill or export report", cause);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fill callbacks; apart from {@link #filled}, {@link #chunks}, {@link #stale} and
+     * {@link #discarded} everything here is only touched on the fill thread.
+     */
+    private final class Pipeline implements FillListener, AsynchronousFilllListener {
+
+        private final SimplePdfExporterConfiguration configuration;
+        // false: only wait for the fill, the finished print is exported in one pass
+        private final boolean exportAlongside;
+        // added to on the fill thread, discarded from the request thread on cancellation
+        private final List<CompletableFuture<PdfBuffer>> chunks = new CopyOnWriteArrayList<>();
+        private final CompletableFuture<JasperPrint> filled = new CompletableFuture<>();
+        private volatile boolean stale;
+        private volatile boolean discarded;
+        private int exportedUpTo;
+
+        private Pipeline(SimplePdfExporterConfiguration configuration, boolean exportAlongside) {
+            this.configuration = configuration;
+            this.exportAlongside = exportAlongside;
+        }
+
+        @Override
+        public void pageGenerated(JasperPrint jasperPrint, int pageIndex) {
+            // page pageIndex has just been started, so everything before it is complete
+            if (pageIndex - exportedUpTo >= chunkPages) {
+                submit(jasperPrint, pageIndex);
+            }
+        }
+
+        @Override
+        public void pageUpdated(JasperPrint jasperPrint, int pageIndex) {
+            if (pageIndex < exportedUpTo) {
+                stale = true;
+            }
+        }
+
+        @Override
+        public void reportFinished(JasperPrint jasperPrint) {
+            if (!stale && exportedUpTo < jasperPrint.getPages().size()) {
+                submit(jasperPrint, jasperPrint.getPages().size());
+            }
+            filled.complete(jasperPrint);
+        }
+
+        @Override
+        public void reportCancelled() {
+            filled.completeExceptionally(new CancellationException("Report fill was cancelled"));
+        }
+
+        @Override
+        public void reportFillError(Throwable t) {
+            filled.completeExceptionally(new PDFGenerationException("Failed to fill report", t));
+        }
+
+        /**
+         * Stops chunks that haven't started and releases the output of the others as they finish.
+         */
+        private void discard() {
+            discarded = true;
+            chunks.forEach(Pipeline::release);
+        }
+
+        private void submit(JasperPrint jasperPrint, int toExclusive) {
+            if (!exportAlongside || stale || discarded) {
+                return;
+            }
+            List<JRPrintPage> pages = new ArrayList<>(jasperPrint.getPages().subList(exportedUpTo, toExclusive));
+            exportedUpTo = toExclusive;
+            CompletableFuture<PdfBuffer> chunk = CompletableFuture.supplyAsync(() -> {
+                if (discarded) {
+                    throw new CancellationException("Report export was cancelled");
+                }
+                try {
+                    return exportChunk(jasperPrint, pages, configuration);
+                } catch (JRException e) {
+                    throw new PDFGenerationException("Failed to export report pages", e);
+                }
+            }, executor);
+            chunks.add(chunk);
+            if (discarded) {
+                // discard() may have gone through the list before this chunk was added
+                release(chunk);
+            }
+        }
+
+        private static void release(CompletableFuture<PdfBuffer> chunk) {
+            chunk.thenAccept(PdfBuffer::close);
+        }
+    }
+}
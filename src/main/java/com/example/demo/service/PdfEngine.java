@@ -0,0 +1,14 @@
+package com.example.demo.service;
+
+/**
+ * The PDF engines available behind {@link IPdfGenerator}.
+ */
+public enum PdfEngine {
+
+    FREEMARKER,
+    JASPER;
+
+    public PdfEngine other() {
+        return this == FREEMARKER ? JASPER : FREEMARKER;
+    }
+}
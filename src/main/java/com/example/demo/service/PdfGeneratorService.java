@@ -1,11 +1,16 @@
 package com.example.demo.service;
 
 import com.example.demo.dto.ReportData;
-import com.example.demo.entity.Report;
-import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
 import com.example.demo.exception.PDFGenerationException;
 import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.schema.DataRow;
+import com.example.demo.service.schema.DataRowModel;
+import com.example.demo.service.schema.DataSchemaRegistry;
 import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.ReportDataLogSummary;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
@@ -13,12 +18,13 @@ import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
+import org.xhtmlrenderer.pdf.DefaultPDFCreationListener;
 import org.xhtmlrenderer.pdf.ITextRenderer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.StringWriter;
-import java.util.UUID;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Service for generating PDF documents from templates.
@@ -27,23 +33,28 @@ import java.util.UUID;
 @Slf4j
 public class PdfGeneratorService implements IPdfGenerator{
 
-    private static final String PDF_EXTENSION = ".pdf";
-
     private static final String BASIC_REPORT_TEMPLATE_NAME = "report.ftl";
 
     private final Configuration freemarkerConfig;
-    private final FileStorageUtil fileStorageUtil;
-    private final ReportRepository reportRepository;
+    private final StoredReports storedReports;
+    private final PdfOutputOptimizer pdfOutputOptimizer;
+    private final PdfBufferFactory pdfBufferFactory;
+    private final DataSchemaRegistry dataSchemaRegistry;
 
     // Explicitly define the constructor with @Qualifier to avoid ambiguity with springs own freemarkerConfig bean
     //lombok will not generate the constructor using qualifier
     public PdfGeneratorService( @Qualifier("customFreemarkerConfig") Configuration freemarkerConfig,
                                 FileStorageUtil fileStorageUtil,
-                                ReportRepository reportRepository)
+                                ReportRepository reportRepository,
+                                PdfOutputOptimizer pdfOutputOptimizer,
+                                PdfBufferFactory pdfBufferFactory,
+                                DataSchemaRegistry dataSchemaRegistry)
     {
         this.freemarkerConfig = freemarkerConfig;
-        this.fileStorageUtil = fileStorageUtil;
-        this.reportRepository = reportRepository;
+        this.storedReports = new StoredReports(fileStorageUtil, reportRepository);
+        this.pdfOutputOptimizer = pdfOutputOptimizer;
+        this.pdfBufferFactory = pdfBufferFactory;
+        this.dataSchemaRegistry = dataSchemaRegistry;
     }
 
 
@@ -55,61 +66,129 @@ public class PdfGeneratorService implements IPdfGenerator{
      * @throws PDFGenerationException if PDF generation fails
      */
     public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    /**
+     * Generates a PDF document from the specified template and data.
+     *
+     * @param reportData the data to populate the template with
+     * @param options per-request options such as the output profile
+     * @return the path where the PDF was saved
+     * @throws PDFGenerationException if PDF generation fails
+     */
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
 
         
         log.info("Starting PDF generation for template: {}", BASIC_REPORT_TEMPLATE_NAME);
-        log.debug("Template data: {}", reportData);
+        log.debug("Template data: {}", ReportDataLogSummary.of(reportData));
 
-        Template template = getReportTemplate(BASIC_REPORT_TEMPLATE_NAME);
-        log.debug("Template loaded successfully");
+        return storedReports.generate(BASIC_REPORT_TEMPLATE_NAME, reportData, options, () ->
+                renderPdf(BASIC_REPORT_TEMPLATE_NAME, reportData, options.getOutputProfile(), options.getCancellation()));
+    }
 
-        String htmlContent = addDataIntoTemplate(reportData, template);
-        log.debug("Template processed successfully");
 
-        byte[] pdfContent = generatePdfFromContent(htmlContent);
-        String savedPath = savePdfToFileSystem(BASIC_REPORT_TEMPLATE_NAME, pdfContent);
-        
-        // Create and persist the report
-        Report report = new Report();
-        report.setTitle(reportData.getTitle());
-        report.setReportId(UUID.randomUUID().toString());
-        report.setStatus(ReportStatus.COMPLETED);
-        reportRepository.save(report);
-        
-        log.info("PDF generation completed. Saved at: {} and report persisted with ID: {}", savedPath, report.getReportId());
-        return savedPath;
+    /**
+     * Merges the model into the named template and lays the result out as a PDF,
+     * without storing it or recording a report. A {@link ReportData} model has its
+     * {@code data} map validated against the template's schema first.
+     *
+     * @param templateName the FreeMarker template to render
+     * @param model the data to populate the template with
+     * @return the PDF, which the caller must close
+     * @throws PDFGenerationException if template processing or PDF generation fails
+     */
+    public PdfBuffer renderPdf(String templateName, Object model) {
+        return renderPdf(templateName, model, PdfOutputProfile.DEFAULT);
+    }
+
+    /**
+     * Same as {@link #renderPdf(String, Object)}, writing the PDF with the given output profile.
+     */
+    public PdfBuffer renderPdf(String templateName, Object model, PdfOutputProfile profile) {
+        return renderPdf(templateName, model, profile, CancellationToken.NONE);
+    }
+
+    /**
+     * Same as {@link #renderPdf(String, Object)}, stopping at the next stage once {@code cancellation}
+     * is cancelled.
+     *
+     * @throws GenerationCancelledException if the request was cancelled before the PDF was complete
+     */
+    public PdfBuffer renderPdf(String templateName, Object model, CancellationToken cancellation) {
+        return renderPdf(templateName, model, PdfOutputProfile.DEFAULT, cancellation);
     }
 
+    private PdfBuffer renderPdf(String templateName, Object model, PdfOutputProfile profile,
+                                CancellationToken cancellation) {
+        Object templateModel = model instanceof ReportData reportData ? templateModel(templateName, reportData) : model;
+        cancellation.checkpoint("template merge");
+        Template template = getReportTemplate(templateName);
+        log.debug("Template loaded successfully");
 
-    private String savePdfToFileSystem(String templateName, byte[] pdfContent) {
-        try {
-            String fileName = String.format("%s_%s%s", templateName, UUID.randomUUID(), PDF_EXTENSION);
-            String savedPath = fileStorageUtil.savePdf(pdfContent, fileName);
-            log.info("PDF saved to file system at: {}", savedPath);
-            return savedPath;
-        } catch (IOException e) {
-            log.error("Failed to save PDF: {}", e.getMessage(), e);
-            throw new PDFGenerationException("Failed to save PDF", e);
+        String htmlContent = addDataIntoTemplate(templateModel, template);
+        log.debug("Template processed successfully");
+
+        PdfBuffer pdfContent = generatePdfFromContent(htmlContent, profile, cancellation);
+        if (!profile.requiresPostProcessing()) {
+            return pdfContent;
+        }
+        try (PdfBuffer unoptimized = pdfContent) {
+            cancellation.checkpoint("optimization");
+            return pdfOutputOptimizer.optimize(unoptimized, profile);
         }
     }
 
-    private byte[] generatePdfFromContent(String htmlContent) {
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
-            log.debug("Creating PDF in memory");
+    /**
+     * The report as the template sees it, with {@code data} bound to the template's schema
+     * when it has one. Callers may add entries before passing it to {@link #renderPdf(String, Object)}.
+     *
+     * @throws com.example.demo.exception.SchemaViolationException if {@code data} is rejected
+     */
+    public Map<String, Object> templateModel(String templateName, ReportData reportData) {
+        DataRow data = dataSchemaRegistry.bind(templateName, reportData.getData());
+        Map<String, Object> model = new HashMap<>();
+        model.put("reportId", reportData.getReportId());
+        model.put("title", reportData.getTitle());
+        model.put("items", reportData.getItems());
+        model.put("data", data != null ? new DataRowModel(data) : reportData.getData());
+        return model;
+    }
+
+    private PdfBuffer generatePdfFromContent(String htmlContent, PdfOutputProfile profile,
+                                             CancellationToken cancellation) {
+        cancellation.checkpoint("layout");
+        PdfBuffer pdfContent = pdfBufferFactory.create();
+        try {
+            log.debug("Creating PDF with output profile {}", profile);
             ITextRenderer renderer = new ITextRenderer();
+            if (profile != PdfOutputProfile.DEFAULT) {
+                renderer.setListener(new DefaultPDFCreationListener() {
+                    @Override
+                    public void preOpen(ITextRenderer iTextRenderer) {
+                        // must happen before the document is opened; full compression also raises the version to 1.5
+                        iTextRenderer.getWriter().setCompressionLevel(profile.getCompressionLevel());
+                        if (profile.isFullCompression()) {
+                            iTextRenderer.getWriter().setFullCompression();
+                        }
+                    }
+                });
+            }
             renderer.setDocumentFromString(htmlContent);
             renderer.layout();
-            renderer.createPDF(outputStream, true);
-            return outputStream.toByteArray();
-        } catch (IOException e) {
-            log.error("Failed to generate PDF: {}", e.getMessage(), e);
-            throw new PDFGenerationException("Failed to generate PDF", e);
+            cancellation.checkpoint("writing the PDF");
+            renderer.createPDF(pdfContent.outputStream(), true);
+            return pdfContent;
+        } catch (RuntimeException e) {
+            pdfContent.close();
+            throw e;
         }
     }
 
-    private String addDataIntoTemplate(ReportData reportData, Template template) {
+    private String addDataIntoTemplate(Object model, Template template) {
         try (StringWriter stringWriter = new StringWriter()) {
-            template.process(reportData, stringWriter);
+            template.process(model, stringWriter);
             return stringWriter.toString();
         } catch (TemplateException | IOException e) {
             log.error("Failed to process template: {}", e.getMessage(), e);
@@ -0,0 +1,347 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.PRIndirectReference;
+import com.lowagie.text.pdf.PRStream;
+import com.lowagie.text.pdf.PRTokeniser;
+import com.lowagie.text.pdf.PdfArray;
+import com.lowagie.text.pdf.PdfContentParser;
+import com.lowagie.text.pdf.PdfCopy;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfNumber;
+import com.lowagie.text.pdf.PdfObject;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfSmartCopy;
+import com.lowagie.text.pdf.RandomAccessFileOrArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rewrites a finished PDF according to a {@link PdfOutputProfile}: drops unreferenced objects,
+ * downsamples JPEG images whose resolution at the size they are drawn exceeds the profile's,
+ * merges byte-identical resources with {@link PdfSmartCopy} and writes the result with object
+ * and cross-reference streams.
+ * <p>
+ * Spilled input is read in partial mode straight from its file unless images have to be rewritten,
+ * and the output goes to a {@link PdfBuffer}, so only the downsampling profile holds a whole
+ * document on the heap.
+ */
+@Slf4j
+@Component
+public class PdfOutputOptimizer {
+
+    private static final float JPEG_QUALITY = 0.75f;
+
+    private static final float[] IDENTITY = {1, 0, 0, 1, 0, 0};
+
+    private static final int MAX_FORM_DEPTH = 8;
+
+    private final PdfBufferFactory pdfBufferFactory;
+
+    public PdfOutputOptimizer(PdfBufferFactory pdfBufferFactory) {
+        this.pdfBufferFactory = pdfBufferFactory;
+    }
+
+    public PdfBuffer optimize(PdfBuffer pdfContent, PdfOutputProfile profile) {
+        try {
+            boolean inPlace = profile.getMaxImageDpi() > 0;
+            PdfReader reader = inPlace || !pdfContent.isSpilled()
+                    ? readFully(pdfContent)
+                    : openReader(pdfContent.getSpillFile());
+            return optimize(reader, pdfContent.size(), profile);
+        } catch (IOException e) {
+            log.error("Failed to optimize PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to optimize PDF", e);
+        }
+    }
+
+    public PdfBuffer optimize(Path pdfFile, PdfOutputProfile profile) {
+        try {
+            PdfReader reader = profile.getMaxImageDpi() > 0
+                    ? new PdfReader(pdfFile.toString())
+                    : openReader(pdfFile);
+            return optimize(reader, pdfFile.toFile().length(), profile);
+        } catch (IOException e) {
+            log.error("Failed to optimize PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to optimize PDF", e);
+        }
+    }
+
+    /**
+     * Opens a reader over a buffer, reading spilled content lazily from its file. The buffer must
+     * stay open until the reader is closed.
+     */
+    static PdfReader openReader(PdfBuffer pdfContent) throws IOException {
+        return pdfContent.isSpilled() ? openReader(pdfContent.getSpillFile()) : readFully(pdfContent);
+    }
+
+    private static PdfReader openReader(Path pdfFile) throws IOException {
+        return new PdfReader(new RandomAccessFileOrArray(pdfFile.toString(), false, true), null);
+    }
+
+    private static PdfReader readFully(PdfBuffer pdfContent) throws IOException {
+        try (InputStream inputStream = pdfContent.openInputStream()) {
+            return new PdfReader(inputStream);
+        }
+    }
+
+    private PdfBuffer optimize(PdfReader reader, long inputSize, PdfOutputProfile profile) {
+        long start = System.nanoTime();
+        PdfBuffer optimized = pdfBufferFactory.create();
+        try {
+            if (profile.getMaxImageDpi() > 0) {
+                downsampleImages(reader, profile.getMaxImageDpi());
+                // PdfCopy only follows references from the pages, this just frees the dropped objects early
+                reader.removeUnusedObjects();
+            }
+
+            Document document = new Document(reader.getPageSizeWithRotation(1));
+            PdfCopy copy = profile.isDeduplicateResources()
+                    ? new PdfSmartCopy(document, optimized.outputStream())
+                    : new PdfCopy(document, optimized.outputStream());
+            copy.setCompressionLevel(profile.getCompressionLevel());
+            if (profile.isFullCompression()) {
+                copy.setFullCompression();
+            }
+
+            document.open();
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                copy.addPage(copy.getImportedPage(reader, page));
+            }
+            document.close();
+
+            log.debug("Optimized PDF with profile {}: {} -> {} bytes in {} ms", profile,
+                    inputSize, optimized.size(), (System.nanoTime() - start) / 1_000_000);
+            return optimized;
+        } catch (IOException | DocumentException e) {
+            optimized.close();
+            log.error("Failed to optimize PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to optimize PDF", e);
+        } catch (RuntimeException e) {
+            optimized.close();
+            throw e;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private void downsampleImages(PdfReader reader, int maxDpi) throws IOException {
+        Map<Integer, float[]> drawnSizes = drawnSizes(reader);
+        if (drawnSizes == null) {
+            log.debug("Could not follow all page content, leaving images as they are");
+            return;
+        }
+        for (int i = 0; i < reader.getXrefSize(); i++) {
+            PdfObject object = reader.getPdfObject(i);
+            if (object == null || !object.isStream()) {
+                continue;
+            }
+            PRStream stream = (PRStream) object;
+            if (!PdfName.IMAGE.equals(stream.get(PdfName.SUBTYPE))
+                    || !PdfName.DCTDECODE.equals(stream.get(PdfName.FILTER))
+                    || stream.get(PdfName.SMASK) != null
+                    || !isPlainColorSpace(stream.get(PdfName.COLORSPACE))
+                    || !hasDefaultDecode(stream.getAsArray(PdfName.DECODE))) {
+                continue;
+            }
+
+            PdfNumber width = stream.getAsNumber(PdfName.WIDTH);
+            PdfNumber height = stream.getAsNumber(PdfName.HEIGHT);
+            float[] drawnSize = drawnSizes.get(i);
+            if (width == null || height == null || drawnSize == null || drawnSize[0] <= 0 || drawnSize[1] <= 0) {
+                continue;
+            }
+            // at its largest use on any page; a point is 1/72 inch
+            double dpi = Math.max(width.floatValue() * 72 / drawnSize[0], height.floatValue() * 72 / drawnSize[1]);
+            if (dpi <= maxDpi) {
+                continue;
+            }
+
+            BufferedImage source;
+            try {
+                source = ImageIO.read(new ByteArrayInputStream(PdfReader.getStreamBytesRaw(stream)));
+            } catch (IOException | RuntimeException e) {
+                // e.g. CMYK or YCCK JPEGs, which ImageIO can't decode; keeping the original is always safe
+                log.debug("Keeping image object {} that could not be decoded: {}", i, e.getMessage());
+                continue;
+            }
+            if (source == null) {
+                continue;
+            }
+            double scale = maxDpi / dpi;
+            int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            boolean gray = source.getColorModel().getNumColorComponents() == 1;
+
+            BufferedImage scaled = new BufferedImage(targetWidth, targetHeight,
+                    gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+            graphics.dispose();
+
+            stream.setData(encodeJpeg(scaled), false);
+            stream.remove(PdfName.DECODEPARMS);
+            stream.remove(PdfName.DECODE);
+            stream.put(PdfName.FILTER, PdfName.DCTDECODE);
+            stream.put(PdfName.WIDTH, new PdfNumber(targetWidth));
+            stream.put(PdfName.HEIGHT, new PdfNumber(targetHeight));
+            stream.put(PdfName.BITSPERCOMPONENT, new PdfNumber(8));
+            stream.put(PdfName.COLORSPACE, gray ? PdfName.DEVICEGRAY : PdfName.DEVICERGB);
+            log.trace("Downsampled image object {} from {}x{} ({} dpi) to {}x{}", i,
+                    source.getWidth(), source.getHeight(), Math.round(dpi), targetWidth, targetHeight);
+        }
+    }
+
+    /**
+     * Only images ImageIO decodes to the same colours can be re-encoded without a visible change.
+     */
+    private static boolean isPlainColorSpace(PdfObject colorSpace) {
+        return PdfName.DEVICERGB.equals(colorSpace) || PdfName.DEVICEGRAY.equals(colorSpace);
+    }
+
+    private static boolean hasDefaultDecode(PdfArray decode) {
+        if (decode == null) {
+            return true;
+        }
+        for (int i = 0; i < decode.size(); i++) {
+            PdfNumber bound = decode.getAsNumber(i);
+            if (bound == null || bound.floatValue() != i % 2) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Walks the page content, following form XObjects, and records the largest width and height in
+     * points each image is drawn at, by object number.
+     *
+     * @return the sizes, or {@code null} if some content could not be parsed, since an image may
+     *         then be drawn larger somewhere than recorded
+     */
+    private static Map<Integer, float[]> drawnSizes(PdfReader reader) {
+        Map<Integer, float[]> sizes = new HashMap<>();
+        try {
+            for (int page = 1; page <= reader.getNumberOfPages(); page++) {
+                PdfDictionary resources = reader.getPageN(page).getAsDict(PdfName.RESOURCES);
+                collectDrawnSizes(reader.getPageContent(page), resources, IDENTITY, sizes, 0);
+            }
+            return sizes;
+        } catch (IOException | RuntimeException e) {
+            log.debug("Failed to parse page content: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void collectDrawnSizes(byte[] content, PdfDictionary resources, float[] baseMatrix,
+                                          Map<Integer, float[]> sizes, int depth) throws IOException {
+        if (depth > MAX_FORM_DEPTH) {
+            throw new IOException("Form XObjects nested more than " + MAX_FORM_DEPTH + " deep");
+        }
+        PdfDictionary xObjects = resources == null ? null : resources.getAsDict(PdfName.XOBJECT);
+        Deque<float[]> saved = new ArrayDeque<>();
+        float[] ctm = baseMatrix;
+        PdfContentParser parser = new PdfContentParser(new PRTokeniser(content));
+        ArrayList<PdfObject> operands = new ArrayList<>();
+        while (!parser.parse(operands).isEmpty()) {
+            String operator = operands.get(operands.size() - 1).toString();
+            switch (operator) {
+                case "q" -> saved.push(ctm);
+                case "Q" -> ctm = saved.isEmpty() ? baseMatrix : saved.pop();
+                case "cm" -> ctm = multiply(matrix(operands, 0), ctm);
+                case "Do" -> {
+                    PdfObject reference = xObjects == null ? null : xObjects.get((PdfName) operands.get(0));
+                    PdfObject xObject = PdfReader.getPdfObject(reference);
+                    if (!(reference instanceof PRIndirectReference indirect) || !(xObject instanceof PRStream stream)) {
+                        break;
+                    }
+                    if (PdfName.IMAGE.equals(stream.get(PdfName.SUBTYPE))) {
+                        // images are drawn into the unit square
+                        float width = (float) Math.hypot(ctm[0], ctm[1]);
+                        float height = (float) Math.hypot(ctm[2], ctm[3]);
+                        sizes.merge(indirect.getNumber(), new float[] {width, height},
+                                (a, b) -> new float[] {Math.max(a[0], b[0]), Math.max(a[1], b[1])});
+                    } else if (PdfName.FORM.equals(stream.get(PdfName.SUBTYPE))) {
+                        PdfArray formMatrix = stream.getAsArray(PdfName.MATRIX);
+                        PdfDictionary formResources = stream.getAsDict(PdfName.RESOURCES);
+                        collectDrawnSizes(PdfReader.getStreamBytes(stream),
+                                formResources != null ? formResources : resources,
+                                formMatrix == null ? ctm : multiply(matrix(formMatrix), ctm), sizes, depth + 1);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    private static float[] matrix(List<PdfObject> operands, int from) {
+        float[] matrix = new float[6];
+        for (int i = 0; i < 6; i++) {
+            matrix[i] = ((PdfNumber) operands.get(from + i)).floatValue();
+        }
+        return matrix;
+    }
+
+    private static float[] matrix(PdfArray array) {
+        float[] matrix = new float[6];
+        for (int i = 0; i < 6; i++) {
+            matrix[i] = array.getAsNumber(i).floatValue();
+        }
+        return matrix;
+    }
+
+    /**
+     * {@code m} applied in the coordinate system of {@code ctm}, as the {@code cm} operator does.
+     */
+    private static float[] multiply(float[] m, float[] ctm) {
+        return new float[] {
+                m[0] * ctm[0] + m[1] * ctm[2],
+                m[0] * ctm[1] + m[1] * ctm[3],
+                m[2] * ctm[0] + m[3] * ctm[2],
+                m[2] * ctm[1] + m[3] * ctm[3],
+                m[4] * ctm[0] + m[5] * ctm[2] + ctm[4],
+                m[4] * ctm[1] + m[5] * ctm[3] + ctm[5]};
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(outputStream)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
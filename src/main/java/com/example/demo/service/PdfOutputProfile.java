@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import java.util.zip.Deflater;
+
+/**
+ * Output size/CPU trade-offs selectable per request.
+ * <ul>
+ *     <li>{@link #DEFAULT} - the engines' stock settings;</li>
+ *     <li>{@link #COMPACT} - maximum deflate level plus PDF 1.5 object and cross-reference streams,
+ *     applied while the document is written so it costs little extra CPU;</li>
+ *     <li>{@link #SMALLEST} - {@code COMPACT} plus a post-processing pass that drops unused objects,
+ *     merges identical resources (fonts, images, form XObjects) and downsamples JPEG images drawn at
+ *     more than 150 dpi.</li>
+ * </ul>
+ */
+public enum PdfOutputProfile {
+
+    DEFAULT(Deflater.DEFAULT_COMPRESSION, false, false, 0),
+    COMPACT(Deflater.BEST_COMPRESSION, true, false, 0),
+    SMALLEST(Deflater.BEST_COMPRESSION, true, true, 150);
+
+    private final int compressionLevel;
+    private final boolean fullCompression;
+    private final boolean deduplicateResources;
+    private final int maxImageDpi;
+
+    PdfOutputProfile(int compressionLevel, boolean fullCompression, boolean deduplicateResources, int maxImageDpi) {
+        this.compressionLevel = compressionLevel;
+        this.fullCompression = fullCompression;
+        this.deduplicateResources = deduplicateResources;
+        this.maxImageDpi = maxImageDpi;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * @return whether object and cross-reference streams (PDF 1.5) should be written
+     */
+    public boolean isFullCompression() {
+        return fullCompression;
+    }
+
+    public boolean isDeduplicateResources() {
+        return deduplicateResources;
+    }
+
+    /**
+     * @return the highest resolution kept for JPEG images, in pixels per inch at the size they are
+     *         drawn on the page, {@code 0} to keep them as-is
+     */
+    public int getMaxImageDpi() {
+        return maxImageDpi;
+    }
+
+    /**
+     * @return whether the finished document has to go through {@code PdfOutputOptimizer}
+     */
+    public boolean requiresPostProcessing() {
+        return deduplicateResources || maxImageDpi > 0;
+    }
+}
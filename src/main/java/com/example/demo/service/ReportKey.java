@@ -0,0 +1,48 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.PDFGenerationException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Identifies a report by what it is rendered from: a SHA-256 of the template, the output profile
+ * and the payload serialised canonically (properties and map keys sorted), so field order and map
+ * insertion order don't matter. Two requests with the same key render the same report, apart from
+ * the time it was generated.
+ */
+public final class ReportKey {
+
+    private static final ObjectMapper CANONICAL_MAPPER = JsonMapper.builder()
+            .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+            .findAndAddModules()
+            .build();
+
+    private ReportKey() {
+    }
+
+    public static String of(String template, PdfOutputProfile profile, ReportData reportData) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((template + '\0' + profile + '\0').getBytes(StandardCharsets.UTF_8));
+            // streamed into the digest, large payloads are never held as one serialised copy
+            try (OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+                CANONICAL_MAPPER.writeValue(out, reportData);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new PDFGenerationException("Failed to compute report key", e);
+        }
+    }
+}
@@ -12,6 +12,8 @@ public interface ReportService {
     Report updateReport(String reportId, Report report);
     
     Optional<Report> getReport(String reportId);
+
+    Optional<Report> getReportByFilePath(String filePath);
     
     List<Report> getAllReports();
     
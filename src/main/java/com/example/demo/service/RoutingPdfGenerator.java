@@ -0,0 +1,133 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.exception.SchemaViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Picks an engine per request instead of making the caller choose an endpoint.
+ * <p>
+ * Both engines render the same report, so any request can go to either. Rules, in order:
+ * <ol>
+ *     <li>measured latency - once both engines have enough samples for the request's size
+ *     class, the historically faster one wins;</li>
+ *     <li>item threshold - otherwise small reports go to FreeMarker and large ones to Jasper,
+ *     whose fill/export cost grows much more slowly with the item count.</li>
+ * </ol>
+ * The threshold sends a whole size class to one engine, so the other one would never collect
+ * samples there. Until it has {@code min-samples} of them, a small fraction of requests
+ * ({@code exploration-rate}) is routed to it instead, as long as the report is no larger than
+ * {@code exploration-max-items}.
+ * <p>
+ * If the chosen engine fails, the other one is tried, unless the request was cancelled or its
+ * payload was rejected.
+ */
+@Slf4j
+@Service("routingPdfGenerator")
+public class RoutingPdfGenerator implements IPdfGenerator {
+
+    private final Map<PdfEngine, IPdfGenerator> engines = new EnumMap<>(PdfEngine.class);
+    private final EngineLatencyTracker latencyTracker;
+
+    @Value("${pdf.routing.item-threshold:500}")
+    private int itemThreshold = 500;
+
+    @Value("${pdf.routing.min-samples:5}")
+    private int minSamples = 5;
+
+    @Value("${pdf.routing.fallback-enabled:true}")
+    private boolean fallbackEnabled = true;
+
+    @Value("${pdf.routing.exploration-rate:0.05}")
+    private double explorationRate = 0.05;
+
+    @Value("${pdf.routing.exploration-max-items:5000}")
+    private int explorationMaxItems = 5_000;
+
+    DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+    public RoutingPdfGenerator(@Qualifier("pdfGeneratorService") IPdfGenerator freemarkerGenerator,
+                               @Qualifier("jasperPdfService") IPdfGenerator jasperGenerator,
+                               EngineLatencyTracker latencyTracker) {
+        this.engines.put(PdfEngine.FREEMARKER, freemarkerGenerator);
+        this.engines.put(PdfEngine.JASPER, jasperGenerator);
+        this.latencyTracker = latencyTracker;
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData) {
+        return generatePdf(reportData, GenerationOptions.defaults());
+    }
+
+    @Override
+    public String generatePdf(ReportData reportData, GenerationOptions options) {
+        int itemCount = itemCount(reportData);
+        PdfEngine primary = selectEngine(reportData);
+        log.info("Routing report {} with {} items to {}", reportData.getReportId(), itemCount, primary);
+
+        try {
+            return generateWith(primary, reportData, options, itemCount);
+        } catch (GenerationCancelledException e) {
+            // the request is over, trying the other engine would only waste more work
+            throw e;
+        } catch (SchemaViolationException e) {
+            // the payload itself was rejected
+            throw e;
+        } catch (RuntimeException e) {
+            if (!fallbackEnabled) {
+                throw e;
+            }
+            PdfEngine fallback = primary.other();
+            log.warn("{} failed for report {}, falling back to {}: {}",
+                    primary, reportData.getReportId(), fallback, e.getMessage());
+            try {
+                return generateWith(fallback, reportData, options, itemCount);
+            } catch (RuntimeException fallbackError) {
+                fallbackError.addSuppressed(e);
+                throw new PDFGenerationException("Both PDF engines failed", fallbackError);
+            }
+        }
+    }
+
+    PdfEngine selectEngine(ReportData reportData) {
+        int itemCount = itemCount(reportData);
+        double freemarkerMillis = latencyTracker.averageMillis(PdfEngine.FREEMARKER, itemCount, minSamples);
+        double jasperMillis = latencyTracker.averageMillis(PdfEngine.JASPER, itemCount, minSamples);
+        if (freemarkerMillis >= 0 && jasperMillis >= 0) {
+            log.debug("Measured latency for {} items: freemarker={} ms, jasper={} ms",
+                    itemCount, freemarkerMillis, jasperMillis);
+            return freemarkerMillis <= jasperMillis ? PdfEngine.FREEMARKER : PdfEngine.JASPER;
+        }
+
+        PdfEngine preferred = itemCount >= itemThreshold ? PdfEngine.JASPER : PdfEngine.FREEMARKER;
+        PdfEngine other = preferred.other();
+        if (itemCount <= explorationMaxItems
+                && latencyTracker.averageMillis(other, itemCount, minSamples) < 0
+                && random.getAsDouble() < explorationRate) {
+            log.debug("Exploring {} for {} items, it has too few samples to compare", other, itemCount);
+            return other;
+        }
+        return preferred;
+    }
+
+    private String generateWith(PdfEngine engine, ReportData reportData, GenerationOptions options, int itemCount) {
+        long start = System.nanoTime();
+        String path = engines.get(engine).generatePdf(reportData, options);
+        latencyTracker.record(engine, itemCount, System.nanoTime() - start);
+        return path;
+    }
+
+    private static int itemCount(ReportData reportData) {
+        return reportData.getItems() == null ? 0 : reportData.getItems().size();
+    }
+}
@@ -0,0 +1,289 @@
+package com.example.demo.service;
+
+import com.example.demo.config.StorageLifecycleProperties;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.cluster.ClusterMembership;
+import com.example.demo.util.FileStorageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps {@code pdf-storage} and the temp directory from growing without bound.
+ * <p>
+ * Each run, in order:
+ * <ol>
+ *     <li>deletes reports past their per-status retention together with their files;</li>
+ *     <li>deletes stored files no {@link Report} refers to, and stale {@code .part} staging and {@code .spill} buffer files;</li>
+ *     <li>deletes content objects that no stored file links to any more;</li>
+ *     <li>deletes old unstored outputs, such as Jasper's, that were never streamed back from
+ *     {@link FileStorageUtil#getTempDir()}.</li>
+ * </ol>
+ * Deletions are capped per run and paused in batches so clean-up I/O doesn't compete with generation.
+ * In cluster mode the shared storage is cleaned up only by the node that owns the clean-up on the hash
+ * ring, while every node sweeps its own temp directory.
+ */
+@Slf4j
+@Lazy(false)
+@Service
+public class StorageLifecycleService {
+
+    private static final String TEMP_REPORT_GLOB = "*.pdf";
+
+    private static final String CLUSTER_JOB_KEY = "storage-lifecycle";
+
+    private final FileStorageUtil fileStorageUtil;
+    private final ReportRepository reportRepository;
+    private final StorageLifecycleProperties properties;
+    private final ClusterMembership clusterMembership;
+
+    public StorageLifecycleService(FileStorageUtil fileStorageUtil,
+                                   ReportRepository reportRepository,
+                                   StorageLifecycleProperties properties,
+                                   ClusterMembership clusterMembership) {
+        this.fileStorageUtil = fileStorageUtil;
+        this.reportRepository = reportRepository;
+        this.properties = properties;
+        this.clusterMembership = clusterMembership;
+    }
+
+    @Scheduled(initialDelayString = "${pdf.storage.lifecycle.initial-delay:PT5M}",
+               fixedDelayString = "${pdf.storage.lifecycle.interval:PT15M}")
+    public void runScheduled() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        // the storage is shared in cluster mode, one node cleaning it up is enough
+        if (clusterMembership.isLocal(CLUSTER_JOB_KEY)) {
+            run();
+        } else {
+            runTempSweep();
+        }
+    }
+
+    /**
+     * Only the node-local part of {@link #run()}.
+     *
+     * @return the number of files deleted
+     */
+    public int runTempSweep() {
+        Throttle throttle = new Throttle(properties.getMaxDeletionsPerRun(),
+                properties.getBatchSize(), properties.getPause());
+        try {
+            int temp = removeStaleTempFiles(throttle);
+            log.info("Temp clean-up removed {} files", temp);
+            return temp;
+        } catch (IOException e) {
+            log.error("Temp clean-up failed: {}", e.getMessage(), e);
+            return throttle.used();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return throttle.used();
+        }
+    }
+
+    /**
+     * @return the number of files deleted
+     */
+    public int run() {
+        long start = System.nanoTime();
+        Throttle throttle = new Throttle(properties.getMaxDeletionsPerRun(),
+                properties.getBatchSize(), properties.getPause());
+        try {
+            int expired = enforceRetention(throttle);
+            int orphans = removeOrphanedFiles(throttle);
+            int objects = removeUnreferencedObjects(throttle);
+            int temp = removeStaleTempFiles(throttle);
+            log.info("Storage clean-up removed {} expired, {} orphaned, {} unreferenced objects and {} temp files in {} ms",
+                    expired, orphans, objects, temp, (System.nanoTime() - start) / 1_000_000);
+            return expired + orphans + objects + temp;
+        } catch (IOException e) {
+            log.error("Storage clean-up failed: {}", e.getMessage(), e);
+            return throttle.used();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Storage clean-up interrupted after {} deletions", throttle.used());
+            return throttle.used();
+        }
+    }
+
+    int enforceRetention(Throttle throttle) throws InterruptedException {
+        int deleted = 0;
+        for (Map.Entry<ReportStatus, Duration> policy : properties.getRetention().entrySet()) {
+            LocalDateTime cutoff = LocalDateTime.now().minus(policy.getValue());
+            List<Report> expired;
+            do {
+                expired = reportRepository.findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(policy.getKey(), cutoff);
+                for (Report report : expired) {
+                    if (!throttle.acquire()) {
+                        return deleted;
+                    }
+                    if (report.getFilePath() != null) {
+                        deleteQuietly(Paths.get(report.getFilePath()));
+                    }
+                    reportRepository.delete(report);
+                    deleted++;
+                    log.debug("Deleted {} report {} past its {} retention", policy.getKey(), report.getReportId(), policy.getValue());
+                }
+            } while (!expired.isEmpty());
+        }
+        return deleted;
+    }
+
+    int removeOrphanedFiles(Throttle throttle) throws IOException, InterruptedException {
+        Path storageDir = fileStorageUtil.getStorageDir();
+        if (!Files.isDirectory(storageDir)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(properties.getOrphanGracePeriod());
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(storageDir, Files::isRegularFile)) {
+            for (Path file : files) {
+                if (!olderThan(file, cutoff)) {
+                    continue;
+                }
+                String name = file.getFileName().toString();
+                boolean staging = name.endsWith(".part") || name.endsWith(".spill");
+                if (!staging && reportRepository.existsByFilePath(file.toString())) {
+                    continue;
+                }
+                if (!throttle.acquire()) {
+                    return deleted;
+                }
+                if (deleteQuietly(file)) {
+                    deleted++;
+                    log.debug("Deleted orphaned file {}", file);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    int removeUnreferencedObjects(Throttle throttle) throws IOException, InterruptedException {
+        Path objectsDir = fileStorageUtil.getObjectsDir();
+        if (!Files.isDirectory(objectsDir)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(properties.getOrphanGracePeriod());
+        int deleted = 0;
+        try (DirectoryStream<Path> shards = Files.newDirectoryStream(objectsDir, Files::isDirectory)) {
+            for (Path shard : shards) {
+                try (DirectoryStream<Path> objects = Files.newDirectoryStream(shard, Files::isRegularFile)) {
+                    for (Path object : objects) {
+                        // the object's own directory entry is the only remaining link
+                        if (!olderThan(object, cutoff) || linkCount(object) > 1) {
+                            continue;
+                        }
+                        if (!throttle.acquire()) {
+                            return deleted;
+                        }
+                        if (deleteQuietly(object)) {
+                            deleted++;
+                            log.debug("Deleted unreferenced content object {}", object);
+                        }
+                    }
+                }
+            }
+        }
+        return deleted;
+    }
+
+    int removeStaleTempFiles(Throttle throttle) throws IOException, InterruptedException {
+        Path tempDir = fileStorageUtil.getTempDir();
+        if (!Files.isDirectory(tempDir)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(properties.getTempFileMaxAge());
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(tempDir, TEMP_REPORT_GLOB)) {
+            for (Path file : files) {
+                if (!Files.isRegularFile(file) || !olderThan(file, cutoff)) {
+                    continue;
+                }
+                if (!throttle.acquire()) {
+                    return deleted;
+                }
+                if (deleteQuietly(file)) {
+                    deleted++;
+                    log.debug("Deleted stale temp file {}", file);
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean olderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static int linkCount(Path file) {
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            // can't tell, so assume it's still referenced
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static boolean deleteQuietly(Path file) {
+        try {
+            Files.delete(file);
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Caps deletions per run and sleeps between batches.
+     */
+    static final class Throttle {
+        private final int limit;
+        private final int batchSize;
+        private final Duration pause;
+        private int used;
+
+        Throttle(int limit, int batchSize, Duration pause) {
+            this.limit = limit;
+            this.batchSize = Math.max(1, batchSize);
+            this.pause = pause;
+        }
+
+        boolean acquire() throws InterruptedException {
+            if (used >= limit) {
+                return false;
+            }
+            if (used > 0 && used % batchSize == 0 && !pause.isZero()) {
+                Thread.sleep(pause.toMillis());
+            }
+            used++;
+            return true;
+        }
+
+        int used() {
+            return used;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * The part of generating a stored report that doesn't depend on the engine: saving the rendered
+ * PDF, linked to earlier renders with the same {@link ReportKey}, and recording it as a completed
+ * {@link Report}. A request cancelled before the PDF is saved is recorded through
+ * {@link CancelledReports} instead.
+ */
+@Slf4j
+final class StoredReports {
+
+    private static final String PDF_EXTENSION = ".pdf";
+
+    private final FileStorageUtil fileStorageUtil;
+    private final ReportRepository reportRepository;
+
+    StoredReports(FileStorageUtil fileStorageUtil, ReportRepository reportRepository) {
+        this.fileStorageUtil = fileStorageUtil;
+        this.reportRepository = reportRepository;
+    }
+
+    /**
+     * Renders the report with {@code render} and stores it under a file name starting with
+     * {@code reportName}, which also identifies the template in the report key.
+     *
+     * @return the path where the PDF was saved
+     */
+    String generate(String reportName, ReportData reportData, GenerationOptions options, Supplier<PdfBuffer> render) {
+        CancellationToken cancellation = options.getCancellation();
+        String savedPath;
+        try (PdfBuffer pdfContent = render.get()) {
+            cancellation.checkpoint("saving the PDF");
+            savedPath = save(reportName, pdfContent, ReportKey.of(reportName, options.getOutputProfile(), reportData));
+        } catch (GenerationCancelledException e) {
+            log.info("PDF generation for {} cancelled: {}", reportData.getReportId(), e.getMessage());
+            CancelledReports.record(reportRepository, reportData);
+            throw e;
+        }
+
+        Report report = new Report();
+        report.setTitle(reportData.getTitle());
+        report.setReportId(UUID.randomUUID().toString());
+        report.setStatus(ReportStatus.COMPLETED);
+        report.setFilePath(savedPath);
+        reportRepository.save(report);
+
+        log.info("PDF generation completed. Saved at: {} and report persisted with ID: {}", savedPath, report.getReportId());
+        return savedPath;
+    }
+
+    private String save(String reportName, PdfBuffer pdfContent, String reportKey) {
+        try {
+            String fileName = String.format("%s_%s%s", reportName, UUID.randomUUID(), PDF_EXTENSION);
+            String savedPath = fileStorageUtil.savePdf(pdfContent, fileName, reportKey);
+            log.info("PDF saved to file system at: {}", savedPath);
+            return savedPath;
+        } catch (IOException e) {
+            log.error("Failed to save PDF: {}", e.getMessage(), e);
+            throw new PDFGenerationException("Failed to save PDF", e);
+        }
+    }
+}
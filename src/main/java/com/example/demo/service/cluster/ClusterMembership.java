@@ -0,0 +1,89 @@
+package com.example.demo.service.cluster;
+
+import com.example.demo.config.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Which node is responsible for what. Generation jobs are assigned to nodes by routing key on a
+ * {@link ConsistentHashRing}, and singleton background jobs the same way. Without clustering every
+ * key is local. Also decides whether a call claiming to come from a peer can be trusted.
+ */
+@Slf4j
+@Component
+public class ClusterMembership {
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> nodes;
+    private final ConsistentHashRing ring;
+    private final byte[] secret;
+
+    public ClusterMembership(ClusterProperties properties) {
+        this.enabled = properties.isEnabled() && !properties.getNodes().isEmpty();
+        this.self = normalize(properties.getSelfUrl());
+        this.nodes = properties.getNodes().stream().map(ClusterMembership::normalize).distinct().toList();
+        this.ring = enabled ? new ConsistentHashRing(nodes, properties.getVirtualNodes()) : null;
+        String configuredSecret = properties.getSecret();
+        this.secret = configuredSecret == null || configuredSecret.isBlank()
+                ? null : configuredSecret.getBytes(StandardCharsets.UTF_8);
+        if (enabled) {
+            if (!nodes.contains(self)) {
+                throw new IllegalStateException("pdf.cluster.self-url " + self + " is not one of pdf.cluster.nodes " + nodes);
+            }
+            if (secret == null) {
+                throw new IllegalStateException("pdf.cluster.secret must be set in cluster mode");
+            }
+            log.info("Cluster mode with nodes {}, this node is {}", nodes, self);
+        }
+    }
+
+    /**
+     * A single node that owns everything, for use outside Spring.
+     */
+    public static ClusterMembership standalone() {
+        return new ClusterMembership(new ClusterProperties());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String self() {
+        return self;
+    }
+
+    /**
+     * @return the base URL of the node owning {@code key}
+     */
+    public String ownerOf(String key) {
+        return enabled ? ring.nodeFor(key) : self;
+    }
+
+    public boolean isLocal(String key) {
+        return self.equals(ownerOf(key));
+    }
+
+    /**
+     * @return whether {@code presented} is the cluster secret; always {@code false} when none is configured
+     */
+    public boolean isTrusted(String presented) {
+        return secret != null && presented != null
+                && MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the other nodes' base URLs
+     */
+    public List<String> peers() {
+        return enabled ? nodes.stream().filter(node -> !node.equals(self)).toList() : List.of();
+    }
+
+    private static String normalize(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.service.cluster;
+
+import com.example.demo.config.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP calls between cluster nodes. Requests carry {@value #FORWARDED_HEADER} so that the
+ * receiving node handles them itself instead of routing them again, and the cluster secret in
+ * {@value #SECRET_HEADER} so that it can tell them from client requests claiming the same.
+ */
+@Slf4j
+@Component
+public class PeerClient {
+
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+
+    private final HttpClient httpClient;
+    private final Duration forwardTimeout;
+    private final Duration connectTimeout;
+    private final String secret;
+
+    public PeerClient(ClusterProperties properties) {
+        this.connectTimeout = properties.getConnectTimeout();
+        this.forwardTimeout = properties.getForwardTimeout();
+        this.secret = properties.getSecret() == null ? "" : properties.getSecret();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+
+    /**
+     * Sends a request on to {@code node} without blocking. The returned future completes with the
+     * response once its headers have arrived, its body still unread, or fails with a
+     * {@link java.net.ConnectException} or {@link java.net.http.HttpConnectTimeoutException} if the
+     * node can't be reached, or an {@link java.net.http.HttpTimeoutException} if it didn't answer
+     * within {@code pdf.cluster.forward-timeout}.
+     *
+     * @param pathAndQuery request path including the query string, if any
+     */
+    public CompletableFuture<HttpResponse<InputStream>> forward(String node, String pathAndQuery,
+                                                                Map<String, String> headers, byte[] body, String from) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+                .timeout(forwardTimeout)
+                .header(FORWARDED_HEADER, from)
+                .header(SECRET_HEADER, secret)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        headers.forEach(request::header);
+        return httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    /**
+     * @return how long a forwarded request may take at most, connecting included
+     */
+    public Duration maxForwardDuration() {
+        return connectTimeout.plus(forwardTimeout);
+    }
+
+    /**
+     * Asks each of {@code peers} to drop its cached compiled state for {@code template}. Failures
+     * are only logged. Compiled Jasper reports are kept until evicted, so a peer that misses the
+     * call serves the old version until the invalidation is repeated or it restarts.
+     */
+    public void invalidateTemplate(Collection<String> peers, String template, String from) {
+        String path = "/api/cluster/templates/" + URLEncoder.encode(template, StandardCharsets.UTF_8) + "/invalidate";
+        for (String peer : peers) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(peer + path))
+                    .timeout(connectTimeout.multipliedBy(2))
+                    .header(FORWARDED_HEADER, from)
+                    .header(SECRET_HEADER, secret)
+                    .POST(HttpRequest.BodyPublishers.noBody())
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error != null || response.statusCode() >= 300) {
+                            log.warn("Could not invalidate template {} on {}: {}", template, peer,
+                                    error != null ? error.getMessage() : "HTTP " + response.statusCode());
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.demo.service.cluster;
+
+import com.example.demo.service.JasperPdfService;
+import freemarker.template.Configuration;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * Drops the compiled state kept for a template (FreeMarker's template cache, compiled Jasper
+ * reports) on this node and, in cluster mode, on every peer.
+ */
+@Slf4j
+@Service
+public class TemplateCacheInvalidator {
+
+    private final Configuration freemarkerConfig;
+    private final JasperPdfService jasperPdfService;
+    private final ClusterMembership clusterMembership;
+    private final PeerClient peerClient;
+
+    public TemplateCacheInvalidator(@Qualifier("customFreemarkerConfig") Configuration freemarkerConfig,
+                                    JasperPdfService jasperPdfService,
+                                    ClusterMembership clusterMembership,
+                                    PeerClient peerClient) {
+        this.freemarkerConfig = freemarkerConfig;
+        this.jasperPdfService = jasperPdfService;
+        this.clusterMembership = clusterMembership;
+        this.peerClient = peerClient;
+    }
+
+    public void invalidate(String template) {
+        invalidateLocally(template);
+        peerClient.invalidateTemplate(clusterMembership.peers(), template, clusterMembership.self());
+    }
+
+    public void invalidateLocally(String template) {
+        try {
+            freemarkerConfig.removeTemplateFromCache(template);
+        } catch (IOException e) {
+            log.warn("Could not remove template {} from the FreeMarker cache: {}", template, e.getMessage());
+        }
+        jasperPdfService.evictCompiled(template);
+        log.info("Invalidated cached state of template {}", template);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * RFC 4180 CSV of the report items, one row per item.
+ * <p>
+ * Fields starting with {@code =}, {@code +}, {@code -}, {@code @}, a tab or a carriage return are
+ * prefixed with {@code '} so spreadsheet applications show them as text instead of evaluating them
+ * as formulas.
+ */
+@Slf4j
+@Component
+public class CsvReportExporter implements ReportExporter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public ReportFormat getFormat() {
+        return ReportFormat.CSV;
+    }
+
+    @Override
+    public void export(ReportData reportData, OutputStream outputStream) throws IOException {
+        log.debug("Exporting {} items as CSV", reportData.getItems().size());
+        // not closed on purpose: the servlet container owns the response stream
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        writer.write("name,description,value\r\n");
+        for (ReportItem item : reportData.getItems()) {
+            writeField(writer, item.getName());
+            writer.write(',');
+            writeField(writer, item.getDescription());
+            writer.write(',');
+            writeField(writer, item.getValue());
+            writer.write("\r\n");
+        }
+        writer.flush();
+    }
+
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && isFormulaTrigger(value.charAt(0))) {
+            value = "'" + value;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private static boolean isFormulaTrigger(char c) {
+        return c == '=' || c == '+' || c == '-' || c == '@' || c == '\t' || c == '\r';
+    }
+}
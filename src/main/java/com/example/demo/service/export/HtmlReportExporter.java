@@ -0,0 +1,69 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.service.PdfGeneratorService;
+import freemarker.template.Configuration;
+import freemarker.template.Template;
+import freemarker.template.TemplateException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * The FreeMarker report rendered straight to the response, skipping the XHTML-to-PDF layout.
+ * The template gets the same model as for PDFs, from {@link PdfGeneratorService#templateModel},
+ * so {@code data} is validated against the template's schema and all values are HTML-escaped.
+ */
+@Slf4j
+@Component
+public class HtmlReportExporter implements ReportExporter {
+
+    private static final String BASIC_REPORT_TEMPLATE_NAME = "report.ftl";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Configuration freemarkerConfig;
+    private final PdfGeneratorService pdfGeneratorService;
+
+    public HtmlReportExporter(@Qualifier("customFreemarkerConfig") Configuration freemarkerConfig,
+                              PdfGeneratorService pdfGeneratorService) {
+        this.freemarkerConfig = freemarkerConfig;
+        this.pdfGeneratorService = pdfGeneratorService;
+    }
+
+    @Override
+    public ReportFormat getFormat() {
+        return ReportFormat.HTML;
+    }
+
+    @Override
+    public void export(ReportData reportData, OutputStream outputStream) throws IOException {
+        prepare(reportData).writeTo(outputStream);
+    }
+
+    @Override
+    public PreparedExport prepare(ReportData reportData) {
+        log.debug("Exporting {} items as HTML", reportData.getItems().size());
+        Map<String, Object> model = pdfGeneratorService.templateModel(BASIC_REPORT_TEMPLATE_NAME, reportData);
+
+        return outputStream -> {
+            Template template = freemarkerConfig.getTemplate(BASIC_REPORT_TEMPLATE_NAME);
+            // not closed on purpose: the servlet container owns the response stream
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+            try {
+                template.process(model, writer);
+            } catch (TemplateException e) {
+                log.error("Failed to process template: {}", e.getMessage(), e);
+                throw new IOException("Failed to process template: " + BASIC_REPORT_TEMPLATE_NAME, e);
+            }
+            writer.flush();
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes {@link ReportData} straight to an output stream in one {@link ReportFormat},
+ * without building the whole document in memory first.
+ */
+public interface ReportExporter {
+
+    ReportFormat getFormat();
+
+    void export(ReportData reportData, OutputStream outputStream) throws IOException;
+
+    /**
+     * Checks the payload and binds whatever the format needs up front, so that a rejected payload
+     * fails here, before the response is committed, rather than halfway through the stream.
+     *
+     * @return writes the export once the response is ready for it
+     * @throws com.example.demo.exception.SchemaViolationException if {@code data} is rejected
+     */
+    default PreparedExport prepare(ReportData reportData) {
+        return outputStream -> export(reportData, outputStream);
+    }
+
+    @FunctionalInterface
+    interface PreparedExport {
+
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+}
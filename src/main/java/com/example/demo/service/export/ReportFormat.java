@@ -0,0 +1,59 @@
+package com.example.demo.service.export;
+
+import org.springframework.http.MediaType;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Output formats the same {@code ReportData} can be exported to.
+ */
+public enum ReportFormat {
+
+    PDF(MediaType.APPLICATION_PDF, "pdf"),
+    CSV(new MediaType("text", "csv"), "csv"),
+    XLSX(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"), "xlsx"),
+    HTML(MediaType.TEXT_HTML, "html");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ReportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Picks the format named in an Accept header with the highest quality, header order breaking
+     * ties; types with {@code q=0} are not acceptable, wildcards and unknown types fall through to
+     * {@code defaultFormat}.
+     */
+    public static ReportFormat fromAccept(String acceptHeader, ReportFormat defaultFormat) {
+        if (acceptHeader == null || acceptHeader.isBlank()) {
+            return defaultFormat;
+        }
+        List<MediaType> accepted = new ArrayList<>(MediaType.parseMediaTypes(acceptHeader));
+        // List.sort is stable, so equal qualities keep the client's order
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() <= 0 || mediaType.isWildcardType() || mediaType.isWildcardSubtype()) {
+                continue;
+            }
+            for (ReportFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return defaultFormat;
+    }
+}
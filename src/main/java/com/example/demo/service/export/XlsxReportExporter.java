@@ -0,0 +1,91 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * XLSX of the report items written with POI's streaming workbook: only the last
+ * {@code pdf.export.xlsx.row-window} rows are kept in memory, older ones are flushed
+ * to a compressed temp file, so heap use does not grow with the item count. Items beyond
+ * what one sheet can hold continue on further sheets, each with its own header row.
+ */
+@Slf4j
+@Component
+public class XlsxReportExporter implements ReportExporter {
+
+    // sheet names are limited to 31 characters
+    private static final int MAX_SHEET_NAME_LENGTH = 31;
+
+    @Value("${pdf.export.xlsx.row-window:100}")
+    private int rowWindow = 100;
+
+    // header row included; lower in tests
+    int maxRowsPerSheet = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+    @Override
+    public ReportFormat getFormat() {
+        return ReportFormat.XLSX;
+    }
+
+    @Override
+    public void export(ReportData reportData, OutputStream outputStream) throws IOException {
+        log.debug("Exporting {} items as XLSX with a {} row window", reportData.getItems().size(), rowWindow);
+        SXSSFWorkbook workbook = new SXSSFWorkbook(rowWindow);
+        workbook.setCompressTempFiles(true);
+        try {
+            String sheetName = sheetName(reportData.getTitle());
+            Sheet sheet = null;
+            int rowIndex = maxRowsPerSheet;
+            for (ReportItem item : reportData.getItems()) {
+                if (rowIndex == maxRowsPerSheet) {
+                    sheet = newSheet(workbook, sheetName);
+                    rowIndex = 1;
+                }
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(item.getName());
+                row.createCell(1).setCellValue(item.getDescription());
+                row.createCell(2).setCellValue(item.getValue());
+            }
+            if (sheet == null) {
+                newSheet(workbook, sheetName);
+            }
+            workbook.write(outputStream);
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+    }
+
+    private static Sheet newSheet(SXSSFWorkbook workbook, String baseName) {
+        int number = workbook.getNumberOfSheets() + 1;
+        String name = baseName;
+        if (number > 1) {
+            String suffix = " (" + number + ")";
+            name = baseName.substring(0, Math.min(baseName.length(), MAX_SHEET_NAME_LENGTH - suffix.length())) + suffix;
+        }
+        Sheet sheet = workbook.createSheet(name);
+        Row header = sheet.createRow(0);
+        header.createCell(0).setCellValue("Name");
+        header.createCell(1).setCellValue("Description");
+        header.createCell(2).setCellValue("Value");
+        return sheet;
+    }
+
+    private static String sheetName(String title) {
+        if (title == null || title.isBlank()) {
+            return "Report";
+        }
+        String name = title.replaceAll("[\\\\/?*\\[\\]:]", " ");
+        return name.length() > MAX_SHEET_NAME_LENGTH ? name.substring(0, MAX_SHEET_NAME_LENGTH) : name;
+    }
+}
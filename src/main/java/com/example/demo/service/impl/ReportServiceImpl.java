@@ -46,6 +46,12 @@ public class ReportServiceImpl implements ReportService {
         return reportRepository.findByReportId(reportId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Report> getReportByFilePath(String filePath) {
+        return reportRepository.findFirstByFilePath(filePath);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<Report> getAllReports() {
@@ -0,0 +1,203 @@
+package com.example.demo.service.schema;
+
+import com.example.demo.exception.SchemaViolationException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * A {@link DataSchema} with a slot and a {@link FieldAccessor} assigned to each field. Compiled
+ * once per schema version by {@link DataSchemaRegistry}; binding a {@code data} map validates it
+ * and copies it into a {@link DataRow} in a single pass.
+ */
+public final class CompiledSchema {
+
+    private final String template;
+    private final int version;
+    private final boolean strict;
+    private final SchemaLimits limits;
+    private final Map<String, FieldAccessor> accessors = new LinkedHashMap<>();
+    private final Map<String, Integer> maxLengths = new LinkedHashMap<>();
+    private final Set<String> required = new HashSet<>();
+    private final Set<String> prefixes = new HashSet<>();
+    private final int referenceSlots;
+    private final int longSlots;
+    private final int doubleSlots;
+
+    CompiledSchema(DataSchema schema, SchemaLimits limits) {
+        this.template = schema.getTemplate();
+        this.version = schema.getVersion();
+        this.strict = schema.isStrict();
+        this.limits = limits;
+
+        int references = 0;
+        int longs = 0;
+        int doubles = 0;
+        int index = 0;
+        for (FieldDefinition field : schema.getFields()) {
+            String name = field.getName();
+            if (name == null || name.isBlank() || accessors.containsKey(name)) {
+                throw new IllegalArgumentException("Schema for " + template + " has a blank or duplicate field: " + name);
+            }
+            int slot = switch (field.getType()) {
+                case STRING -> references++;
+                case LONG, BOOLEAN -> longs++;
+                case DOUBLE -> doubles++;
+            };
+            accessors.put(name, new FieldAccessor(name, field.getType(), index++, slot));
+            maxLengths.put(name, field.getMaxLength() > 0 ? field.getMaxLength() : limits.maxStringLength());
+            if (field.isRequired()) {
+                required.add(name);
+            }
+            for (int dot = name.indexOf('.'); dot > 0; dot = name.indexOf('.', dot + 1)) {
+                prefixes.add(name.substring(0, dot + 1));
+            }
+        }
+        this.referenceSlots = references;
+        this.longSlots = longs;
+        this.doubleSlots = doubles;
+    }
+
+    public String getTemplate() {
+        return template;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the accessor for a declared field, or {@code null}
+     */
+    public FieldAccessor accessor(String name) {
+        return accessors.get(name);
+    }
+
+    public Collection<FieldAccessor> accessors() {
+        return Collections.unmodifiableCollection(accessors.values());
+    }
+
+    /**
+     * @return whether some declared field is nested under {@code prefix}, which ends with a dot
+     */
+    boolean hasPrefix(String prefix) {
+        return prefixes.contains(prefix);
+    }
+
+    /**
+     * Validates {@code data} and flattens it into a row.
+     *
+     * @throws SchemaViolationException if it exceeds the limits, has values of the wrong type,
+     *                                  misses required fields or, for strict schemas, has undeclared keys
+     */
+    public DataRow bind(Map<String, Object> data) {
+        DataRow row = new DataRow(this, referenceSlots, longSlots, doubleSlots, accessors.size());
+        if (data != null) {
+            walk(data, limits, (name, value) -> {
+                FieldAccessor accessor = accessors.get(name);
+                if (accessor == null) {
+                    if (strict) {
+                        throw new SchemaViolationException("Field '" + name + "' is not declared for " + template);
+                    }
+                    return;
+                }
+                if (value == null) {
+                    return;
+                }
+                if (value instanceof Collection<?>) {
+                    throw new SchemaViolationException("Field '" + name + "' must be a single " + accessor.getType());
+                }
+                Object coerced = accessor.getType().coerce(name, value);
+                if (coerced instanceof String string && string.length() > maxLengths.get(name)) {
+                    throw new SchemaViolationException("Field '" + name + "' is longer than " + maxLengths.get(name) + " characters");
+                }
+                accessor.set(row, coerced);
+            });
+        }
+        for (String name : required) {
+            if (!accessors.get(name).isPresent(row)) {
+                throw new SchemaViolationException("Required field '" + name + "' is missing for " + template);
+            }
+        }
+        return row;
+    }
+
+    /**
+     * Checks {@code data} against the limits only, for templates without a schema.
+     */
+    static void checkLimits(Map<String, Object> data, SchemaLimits limits) {
+        if (data != null) {
+            walk(data, limits, (name, value) -> checkLength(name, value, limits));
+        }
+    }
+
+    /**
+     * Visits the leaves of {@code data} with their dotted names, failing as soon as a limit is exceeded.
+     * Collections are leaves too, but their elements are checked against the limits on the way,
+     * each collection counting as a nesting level.
+     */
+    private static void walk(Map<String, Object> data, SchemaLimits limits, BiConsumer<String, Object> leaf) {
+        walk(data, "", 1, new int[1], limits, leaf);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void walk(Map<String, Object> map, String prefix, int depth, int[] entries,
+                             SchemaLimits limits, BiConsumer<String, Object> leaf) {
+        checkDepth(depth, prefix, limits);
+        countEntries(map.size(), entries, limits);
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            String name = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map<?, ?> nested) {
+                walk((Map<String, Object>) nested, name + ".", depth + 1, entries, limits, leaf);
+            } else {
+                if (value instanceof Collection<?> collection) {
+                    walkElements(collection, name, depth + 1, entries, limits);
+                }
+                leaf.accept(name, value);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void walkElements(Collection<?> collection, String name, int depth, int[] entries,
+                                     SchemaLimits limits) {
+        checkDepth(depth, name, limits);
+        countEntries(collection.size(), entries, limits);
+        String elementName = name + "[]";
+        for (Object element : collection) {
+            if (element instanceof Map<?, ?> nested) {
+                walk((Map<String, Object>) nested, elementName + ".", depth + 1, entries, limits,
+                        (leafName, value) -> checkLength(leafName, value, limits));
+            } else if (element instanceof Collection<?> inner) {
+                walkElements(inner, elementName, depth + 1, entries, limits);
+            } else {
+                checkLength(elementName, element, limits);
+            }
+        }
+    }
+
+    private static void checkDepth(int depth, String name, SchemaLimits limits) {
+        if (depth > limits.maxDepth()) {
+            throw new SchemaViolationException("Data is nested deeper than " + limits.maxDepth() + " levels at '" + name + "'");
+        }
+    }
+
+    private static void countEntries(int count, int[] entries, SchemaLimits limits) {
+        entries[0] += count;
+        if (entries[0] > limits.maxEntries()) {
+            throw new SchemaViolationException("Data has more than " + limits.maxEntries() + " entries");
+        }
+    }
+
+    private static void checkLength(String name, Object value, SchemaLimits limits) {
+        if (value instanceof String string && string.length() > limits.maxStringLength()) {
+            throw new SchemaViolationException("Field '" + name + "' is longer than " + limits.maxStringLength() + " characters");
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.demo.service.schema;
+
+/**
+ * A {@code data} map validated and flattened against a {@link CompiledSchema}: one fixed slot per
+ * declared field, with numbers and booleans kept unboxed. Read it through the schema's
+ * {@link FieldAccessor}s.
+ */
+public final class DataRow {
+
+    private final CompiledSchema schema;
+    final Object[] references;
+    final long[] longs;
+    final double[] doubles;
+    final boolean[] present;
+
+    DataRow(CompiledSchema schema, int referenceSlots, int longSlots, int doubleSlots, int fieldCount) {
+        this.schema = schema;
+        this.references = new Object[referenceSlots];
+        this.longs = new long[longSlots];
+        this.doubles = new double[doubleSlots];
+        this.present = new boolean[fieldCount];
+    }
+
+    public CompiledSchema getSchema() {
+        return schema;
+    }
+}
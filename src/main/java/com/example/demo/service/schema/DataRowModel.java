@@ -0,0 +1,59 @@
+package com.example.demo.service.schema;
+
+import freemarker.template.SimpleNumber;
+import freemarker.template.SimpleScalar;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateModel;
+
+/**
+ * Exposes a {@link DataRow} to FreeMarker as {@code data}. Values are wrapped straight from their
+ * slots, without bean introspection, and only declared scalar fields are reachable, so nothing in
+ * the payload can reach Java methods. Nested fields work as usual, e.g. {@code data.customer.name}.
+ */
+public final class DataRowModel implements TemplateHashModel {
+
+    private final DataRow row;
+    private final String prefix;
+
+    public DataRowModel(DataRow row) {
+        this(row, "");
+    }
+
+    private DataRowModel(DataRow row, String prefix) {
+        this.row = row;
+        this.prefix = prefix;
+    }
+
+    @Override
+    public TemplateModel get(String key) {
+        String name = prefix.isEmpty() ? key : prefix + key;
+        CompiledSchema schema = row.getSchema();
+        FieldAccessor accessor = schema.accessor(name);
+        if (accessor == null) {
+            return schema.hasPrefix(name + ".") ? new DataRowModel(row, name + ".") : null;
+        }
+        if (!accessor.isPresent(row)) {
+            return null;
+        }
+        return switch (accessor.getType()) {
+            case STRING -> new SimpleScalar((String) accessor.get(row));
+            case LONG -> new SimpleNumber(accessor.getLong(row));
+            case DOUBLE -> new SimpleNumber(accessor.getDouble(row));
+            case BOOLEAN -> accessor.getBoolean(row) ? TemplateBooleanModel.TRUE : TemplateBooleanModel.FALSE;
+        };
+    }
+
+    /**
+     * @return whether no field under this model's prefix has a value, e.g. for {@code data?has_content}
+     */
+    @Override
+    public boolean isEmpty() {
+        for (FieldAccessor accessor : row.getSchema().accessors()) {
+            if (accessor.getName().startsWith(prefix) && accessor.isPresent(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
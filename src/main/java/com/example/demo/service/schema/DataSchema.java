@@ -0,0 +1,25 @@
+package com.example.demo.service.schema;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Typed description of the {@code data} map a template accepts, read from
+ * {@code classpath:schemas/*.json}. Bump {@link #version} whenever the fields change, so that
+ * compiled accessors and compiled Jasper reports cached for the old version are not reused.
+ */
+@Data
+public class DataSchema {
+
+    /** Template this schema belongs to, e.g. {@code report.ftl} or {@code sample-report.jrxml}. */
+    private String template;
+
+    private int version = 1;
+
+    /** Whether undeclared keys are rejected; otherwise they are dropped before rendering. */
+    private boolean strict;
+
+    private List<FieldDefinition> fields = new ArrayList<>();
+}
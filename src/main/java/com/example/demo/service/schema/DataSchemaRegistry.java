@@ -0,0 +1,100 @@
+package com.example.demo.service.schema;
+
+import com.example.demo.exception.SchemaViolationException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled {@link DataSchema}s by template, loaded from {@code pdf.schema.locations} at startup.
+ * A schema is compiled once per version; registering a newer version replaces it.
+ * <p>
+ * Every {@code data} map is checked against the {@code pdf.schema.*} size limits before rendering,
+ * and bound to its template's schema when there is one.
+ */
+@Slf4j
+@Component
+public class DataSchemaRegistry {
+
+    private static final String DEFAULT_LOCATIONS = "classpath*:schemas/*.json";
+
+    private final SchemaLimits limits;
+    private final ConcurrentMap<String, CompiledSchema> schemas = new ConcurrentHashMap<>();
+
+    public DataSchemaRegistry(@Value("${pdf.schema.max-entries:256}") int maxEntries,
+                              @Value("${pdf.schema.max-depth:4}") int maxDepth,
+                              @Value("${pdf.schema.max-string-length:4096}") int maxStringLength,
+                              @Value("${pdf.schema.locations:" + DEFAULT_LOCATIONS + "}") String locations) {
+        this.limits = new SchemaLimits(maxEntries, maxDepth, maxStringLength);
+        load(locations);
+    }
+
+    /**
+     * A registry with the bundled schemas and default limits, for use outside Spring.
+     */
+    public static DataSchemaRegistry withDefaults() {
+        SchemaLimits defaults = SchemaLimits.DEFAULTS;
+        return new DataSchemaRegistry(defaults.maxEntries(), defaults.maxDepth(), defaults.maxStringLength(), DEFAULT_LOCATIONS);
+    }
+
+    public CompiledSchema register(DataSchema schema) {
+        CompiledSchema compiled = new CompiledSchema(schema, limits);
+        return schemas.merge(schema.getTemplate(), compiled,
+                (current, candidate) -> candidate.getVersion() >= current.getVersion() ? candidate : current);
+    }
+
+    /**
+     * @return the schema of {@code template}, or {@code null} if it has none
+     */
+    public CompiledSchema schemaFor(String template) {
+        return schemas.get(template);
+    }
+
+    /**
+     * Validates {@code data} for {@code template} and flattens it.
+     *
+     * @return the bound row, or {@code null} if the template has no schema and {@code data} is
+     *         within the limits
+     * @throws SchemaViolationException if {@code data} is rejected
+     */
+    public DataRow bind(String template, Map<String, Object> data) {
+        CompiledSchema schema = schemas.get(template);
+        if (schema == null) {
+            CompiledSchema.checkLimits(data, limits);
+            return null;
+        }
+        return schema.bind(data);
+    }
+
+    /**
+     * Key for caches of anything compiled from {@code template}; changes with the schema version.
+     */
+    public String cacheKey(String template) {
+        CompiledSchema schema = schemas.get(template);
+        return schema == null ? template : template + "@" + schema.getVersion();
+    }
+
+    private void load(String locations) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(locations)) {
+                try (InputStream in = resource.getInputStream()) {
+                    CompiledSchema compiled = register(objectMapper.readValue(in, DataSchema.class));
+                    log.info("Loaded data schema for {} version {} from {}",
+                            compiled.getTemplate(), compiled.getVersion(), resource.getFilename());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load data schemas from " + locations, e);
+        }
+    }
+}
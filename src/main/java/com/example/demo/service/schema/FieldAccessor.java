@@ -0,0 +1,70 @@
+package com.example.demo.service.schema;
+
+/**
+ * Reads one field of a {@link DataRow} by its precomputed slot, with no name lookup or reflection.
+ * Obtained from {@link CompiledSchema#accessor(String)} once, then applied to any row bound
+ * against the same schema.
+ */
+public final class FieldAccessor {
+
+    private final String name;
+    private final FieldType type;
+    private final int index;
+    private final int slot;
+
+    FieldAccessor(String name, FieldType type, int index, int slot) {
+        this.name = name;
+        this.type = type;
+        this.index = index;
+        this.slot = slot;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public FieldType getType() {
+        return type;
+    }
+
+    public boolean isPresent(DataRow row) {
+        return row.present[index];
+    }
+
+    /**
+     * @return the boxed value, or {@code null} if the field was absent
+     */
+    public Object get(DataRow row) {
+        if (!row.present[index]) {
+            return null;
+        }
+        return switch (type) {
+            case STRING -> row.references[slot];
+            case LONG -> row.longs[slot];
+            case DOUBLE -> row.doubles[slot];
+            case BOOLEAN -> row.longs[slot] != 0;
+        };
+    }
+
+    public long getLong(DataRow row) {
+        return type == FieldType.DOUBLE ? (long) row.doubles[slot] : row.longs[slot];
+    }
+
+    public double getDouble(DataRow row) {
+        return type == FieldType.DOUBLE ? row.doubles[slot] : row.longs[slot];
+    }
+
+    public boolean getBoolean(DataRow row) {
+        return row.longs[slot] != 0;
+    }
+
+    void set(DataRow row, Object value) {
+        row.present[index] = true;
+        switch (type) {
+            case STRING -> row.references[slot] = value;
+            case LONG -> row.longs[slot] = (Long) value;
+            case DOUBLE -> row.doubles[slot] = (Double) value;
+            case BOOLEAN -> row.longs[slot] = (Boolean) value ? 1 : 0;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.service.schema;
+
+import lombok.Data;
+
+/**
+ * One declared field of a {@link DataSchema}. Nested {@code data} maps are addressed with dotted
+ * names, e.g. {@code customer.name}.
+ */
+@Data
+public class FieldDefinition {
+
+    private String name;
+
+    private FieldType type = FieldType.STRING;
+
+    private boolean required;
+
+    /** Longest accepted string value; {@code 0} for the global {@code pdf.schema.max-string-length}. */
+    private int maxLength;
+}
@@ -0,0 +1,44 @@
+package com.example.demo.service.schema;
+
+import com.example.demo.exception.SchemaViolationException;
+
+/**
+ * Value types a schema field can declare. Numbers and booleans are stored unboxed in a
+ * {@link DataRow}; strings as references.
+ */
+public enum FieldType {
+
+    STRING,
+    LONG,
+    DOUBLE,
+    BOOLEAN;
+
+    /**
+     * Converts a value as it arrives from JSON, accepting numbers and booleans sent as strings.
+     */
+    Object coerce(String field, Object value) {
+        try {
+            return switch (this) {
+                case STRING -> value instanceof String string ? string : String.valueOf(value);
+                case LONG -> value instanceof Number number && !(value instanceof Double || value instanceof Float)
+                        ? number.longValue() : Long.parseLong(value.toString());
+                case DOUBLE -> value instanceof Number number ? number.doubleValue() : Double.parseDouble(value.toString());
+                case BOOLEAN -> value instanceof Boolean bool ? bool : parseBoolean(value.toString());
+            };
+        } catch (IllegalArgumentException e) {
+            throw new SchemaViolationException("Field '" + field + "' is not a valid " + this + ": " + abbreviate(value));
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if ("true".equalsIgnoreCase(value) || "false".equalsIgnoreCase(value)) {
+            return Boolean.parseBoolean(value);
+        }
+        throw new IllegalArgumentException(value);
+    }
+
+    private static String abbreviate(Object value) {
+        String text = String.valueOf(value);
+        return text.length() <= 40 ? text : text.substring(0, 40) + "...";
+    }
+}
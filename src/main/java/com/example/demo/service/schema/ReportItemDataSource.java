@@ -0,0 +1,74 @@
+package com.example.demo.service.schema;
+
+import com.example.demo.dto.ReportItem;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Feeds report items to a Jasper fill without copying each one into a map. Fields named after
+ * {@link ReportItem} properties read the item; any other field, optionally prefixed with
+ * {@code data.}, is read from the bound {@code data} row and is the same for every item.
+ * Each field is resolved to its accessor once, on first use.
+ */
+public final class ReportItemDataSource implements JRRewindableDataSource {
+
+    private static final String DATA_PREFIX = "data.";
+
+    private final List<ReportItem> items;
+    private final DataRow data;
+    private final Map<JRField, Function<ReportItem, Object>> accessors = new IdentityHashMap<>();
+    private int index = -1;
+
+    /**
+     * @param data the bound {@code data} map, or {@code null} if the template has no schema
+     */
+    public ReportItemDataSource(List<ReportItem> items, DataRow data) {
+        this.items = items;
+        this.data = data;
+    }
+
+    @Override
+    public boolean next() {
+        return ++index < items.size();
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        Function<ReportItem, Object> accessor = accessors.get(field);
+        if (accessor == null) {
+            accessor = resolve(field.getName());
+            accessors.put(field, accessor);
+        }
+        return accessor.apply(items.get(index));
+    }
+
+    @Override
+    public void moveFirst() {
+        index = -1;
+    }
+
+    private Function<ReportItem, Object> resolve(String name) throws JRException {
+        switch (name) {
+            case "name":
+                return ReportItem::getName;
+            case "description":
+                return ReportItem::getDescription;
+            case "value":
+                return ReportItem::getValue;
+            default:
+                String dataName = name.startsWith(DATA_PREFIX) ? name.substring(DATA_PREFIX.length()) : name;
+                FieldAccessor fieldAccessor = data == null ? null : data.getSchema().accessor(dataName);
+                if (fieldAccessor == null) {
+                    throw new JRException("Field '" + name + "' is neither an item property nor declared in the data schema");
+                }
+                Object value = fieldAccessor.get(data);
+                return item -> value;
+        }
+    }
+}
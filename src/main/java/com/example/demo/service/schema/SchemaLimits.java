@@ -0,0 +1,13 @@
+package com.example.demo.service.schema;
+
+/**
+ * Size limits every {@code data} map must stay within, whether or not its template has a schema.
+ *
+ * @param maxEntries      keys across all nesting levels
+ * @param maxDepth        nesting levels, {@code 1} for a flat map
+ * @param maxStringLength characters per string value, unless a field declares its own limit
+ */
+public record SchemaLimits(int maxEntries, int maxDepth, int maxStringLength) {
+
+    public static final SchemaLimits DEFAULTS = new SchemaLimits(256, 4, 4096);
+}
@@ -0,0 +1,34 @@
+package com.example.demo.service.table;
+
+import com.example.demo.dto.ReportItem;
+import com.lowagie.text.Element;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * One column of a {@link TableLayout}: its header, relative width, horizontal alignment
+ * (one of the {@link Element} {@code ALIGN_*} constants) and how to read the cell text from an item.
+ */
+public record TableColumn(String header, float width, int alignment, Function<ReportItem, String> value) {
+
+    public TableColumn {
+        Objects.requireNonNull(header, "header");
+        Objects.requireNonNull(value, "value");
+        if (width <= 0) {
+            throw new IllegalArgumentException("Column width must be positive: " + header);
+        }
+    }
+
+    public static TableColumn left(String header, float width, Function<ReportItem, String> value) {
+        return new TableColumn(header, width, Element.ALIGN_LEFT, value);
+    }
+
+    public static TableColumn right(String header, float width, Function<ReportItem, String> value) {
+        return new TableColumn(header, width, Element.ALIGN_RIGHT, value);
+    }
+
+    String text(ReportItem item) {
+        return Objects.toString(value.apply(item), "");
+    }
+}
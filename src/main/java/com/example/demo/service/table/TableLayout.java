@@ -0,0 +1,59 @@
+package com.example.demo.service.table;
+
+import com.example.demo.dto.ReportItem;
+import com.lowagie.text.PageSize;
+import com.lowagie.text.Rectangle;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Declarative description of a tabular report drawn by {@link TableReportWriter}: the columns,
+ * page size and font size, and the footer printed on every page. The report title and generation
+ * time are printed above the table; the header row is repeated on every page.
+ */
+@Value
+@Builder
+public class TableLayout {
+
+    @Singular
+    List<TableColumn> columns;
+
+    @Builder.Default
+    Rectangle pageSize = PageSize.A4;
+
+    @Builder.Default
+    float fontSize = 9f;
+
+    /** Printed centred at the bottom of each page, followed by the page number; {@code null} for none. */
+    String footer;
+
+    /**
+     * Rows are handed to the document in batches of this size, after which they are written out
+     * and dropped from memory. Also how often cancellation is checked.
+     */
+    @Builder.Default
+    int flushEveryRows = 500;
+
+    /**
+     * The name/description/value table of {@code report.ftl}.
+     */
+    public static TableLayout basicReport() {
+        return TableLayout.builder()
+                .column(TableColumn.left("Name", 2f, ReportItem::getName))
+                .column(TableColumn.left("Description", 5f, ReportItem::getDescription))
+                .column(TableColumn.right("Value", 1.5f, ReportItem::getValue))
+                .footer("This is a sample report generated using OpenPDF")
+                .build();
+    }
+
+    float[] relativeWidths() {
+        float[] widths = new float[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            widths[i] = columns.get(i).width();
+        }
+        return widths;
+    }
+}
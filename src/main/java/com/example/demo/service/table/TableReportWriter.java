@@ -0,0 +1,144 @@
+package com.example.demo.service.table;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import com.example.demo.service.CancellationToken;
+import com.example.demo.service.PdfOutputProfile;
+import com.lowagie.text.Document;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.Element;
+import com.lowagie.text.Font;
+import com.lowagie.text.FontFactory;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.Phrase;
+import com.lowagie.text.pdf.ColumnText;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfPageEventHelper;
+import com.lowagie.text.pdf.PdfWriter;
+
+import java.awt.Color;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Draws a {@link TableLayout} straight into a PDF with OpenPDF, without any HTML or CSS layout.
+ * <p>
+ * The table is added as an incomplete {@link PdfPTable}: every {@link TableLayout#getFlushEveryRows()}
+ * rows the pending rows are laid out, finished pages are written to the output stream and the rows
+ * are released, so memory use doesn't grow with the row count.
+ */
+public class TableReportWriter {
+
+    // the same as report.ftl and sample-report.jrxml print
+    private static final DateTimeFormatter GENERATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final Color HEADER_BACKGROUND = new Color(0xf2, 0xf2, 0xf2);
+    private static final Color BORDER = new Color(0xdd, 0xdd, 0xdd);
+    private static final float MARGIN = 36f;
+
+    private final TableLayout layout;
+    private final Font cellFont;
+    private final Font headerFont;
+
+    public TableReportWriter(TableLayout layout) {
+        this.layout = layout;
+        this.cellFont = FontFactory.getFont(FontFactory.HELVETICA, layout.getFontSize());
+        this.headerFont = FontFactory.getFont(FontFactory.HELVETICA_BOLD, layout.getFontSize());
+    }
+
+    /**
+     * Writes the report and closes {@code outputStream}.
+     *
+     * @throws com.example.demo.exception.GenerationCancelledException if cancelled between batches
+     */
+    public void write(ReportData reportData, OutputStream outputStream, PdfOutputProfile profile,
+                      CancellationToken cancellation) throws DocumentException {
+        Document document = new Document(layout.getPageSize(), MARGIN, MARGIN, MARGIN, MARGIN + 18f);
+        PdfWriter writer = PdfWriter.getInstance(document, outputStream);
+        if (profile != PdfOutputProfile.DEFAULT) {
+            writer.setCompressionLevel(profile.getCompressionLevel());
+            if (profile.isFullCompression()) {
+                writer.setFullCompression();
+            }
+        }
+        if (layout.getFooter() != null) {
+            writer.setPageEvent(new FooterEvent(layout.getFooter(), cellFont));
+        }
+
+        document.open();
+        try {
+            writeHeading(document, reportData);
+            writeTable(document, reportData.getItems(), cancellation);
+        } finally {
+            // also on cancellation, so the writer lets go of the stream
+            document.close();
+        }
+    }
+
+    private void writeHeading(Document document, ReportData reportData) throws DocumentException {
+        Paragraph title = new Paragraph(reportData.getTitle(),
+                FontFactory.getFont(FontFactory.HELVETICA_BOLD, layout.getFontSize() * 2));
+        title.setAlignment(Element.ALIGN_CENTER);
+        document.add(title);
+
+        Paragraph generated = new Paragraph("Generated on: " + LocalDateTime.now().format(GENERATED_FORMAT), cellFont);
+        generated.setAlignment(Element.ALIGN_CENTER);
+        generated.setSpacingAfter(layout.getFontSize() * 2);
+        document.add(generated);
+    }
+
+    private void writeTable(Document document, List<ReportItem> items, CancellationToken cancellation)
+            throws DocumentException {
+        List<TableColumn> columns = layout.getColumns();
+        PdfPTable table = new PdfPTable(layout.relativeWidths());
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        table.setComplete(false);
+        for (TableColumn column : columns) {
+            PdfPCell cell = cell(column.header(), headerFont, column.alignment());
+            cell.setBackgroundColor(HEADER_BACKGROUND);
+            table.addCell(cell);
+        }
+
+        int rows = 0;
+        for (ReportItem item : items) {
+            for (TableColumn column : columns) {
+                table.addCell(cell(column.text(item), cellFont, column.alignment()));
+            }
+            if (++rows % layout.getFlushEveryRows() == 0) {
+                cancellation.checkpoint("layout");
+                document.add(table);
+            }
+        }
+        table.setComplete(true);
+        document.add(table);
+    }
+
+    private static PdfPCell cell(String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setHorizontalAlignment(alignment);
+        cell.setBorderColor(BORDER);
+        cell.setPadding(4f);
+        return cell;
+    }
+
+    private static final class FooterEvent extends PdfPageEventHelper {
+
+        private final String footer;
+        private final Font font;
+
+        FooterEvent(String footer, Font font) {
+            this.footer = footer;
+            this.font = font;
+        }
+
+        @Override
+        public void onEndPage(PdfWriter writer, Document document) {
+            Phrase text = new Phrase(footer + " - page " + writer.getPageNumber(), font);
+            float x = (document.left() + document.right()) / 2;
+            ColumnText.showTextAligned(writer.getDirectContent(), Element.ALIGN_CENTER, text, x, document.bottom() - 18f, 0);
+        }
+    }
+}
@@ -2,13 +2,19 @@ package com.example.demo.util;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -18,13 +24,96 @@ public class FileStorageUtil {
     private static final Logger logger = LoggerFactory.getLogger(FileStorageUtil.class);
 
     private static final String PDF_STORAGE_DIR = "pdf-storage";
+    private static final String TEMP_DIR_NAME = "pdf-report-temp";
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss");
 
-    public String savePdf(byte[] pdfContent, String fileName) throws IOException {
+    /**
+     * Content-addressed copies of stored PDFs live here; the named files are hard links to them.
+     */
+    public static final String OBJECTS_DIR = ".objects";
+
+    @Value("${pdf.storage.dir:" + PDF_STORAGE_DIR + "}")
+    private String storageDirectory = PDF_STORAGE_DIR;
+
+    @Value("${pdf.storage.deduplicate:true}")
+    private volatile boolean deduplicate = true;
+
+    /**
+     * Where PDFs that are only streamed back once, without being stored, are written; empty for
+     * a directory of our own under the JVM temp directory.
+     */
+    @Value("${pdf.storage.temp-dir:}")
+    private String tempDirectory = "";
+
+    public Path getStorageDir() {
+        return Paths.get(storageDirectory);
+    }
+
+    public Path getTempDir() {
+        return tempDirectory.isBlank()
+                ? Paths.get(System.getProperty("java.io.tmpdir"), TEMP_DIR_NAME)
+                : Paths.get(tempDirectory);
+    }
+
+    /**
+     * Creates an empty file in {@link #getTempDir()} for a PDF that is not stored. It is deleted
+     * once served through {@link #pdfResource(String)}, and swept up by the storage clean-up if
+     * it never is.
+     */
+    public Path createTempPdf() throws IOException {
+        Path tempDir = getTempDir();
+        Files.createDirectories(tempDir);
+        return Files.createTempFile(tempDir, "report", ".pdf");
+    }
+
+    public boolean isTempFile(String filePath) {
+        Path tempDir = getTempDir().toAbsolutePath().normalize();
+        return Paths.get(filePath).toAbsolutePath().normalize().startsWith(tempDir);
+    }
+
+    /**
+     * A PDF as a response body. Files from {@link #createTempPdf()} are deleted when the body has
+     * been read; stored files are left alone.
+     */
+    public Resource pdfResource(String filePath) {
+        if (!isTempFile(filePath)) {
+            return new FileSystemResource(filePath);
+        }
+        return new FileSystemResource(filePath) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return Files.newInputStream(getFile().toPath(), StandardOpenOption.DELETE_ON_CLOSE);
+            }
+        };
+    }
+
+    public Path getObjectsDir() {
+        return getStorageDir().resolve(OBJECTS_DIR);
+    }
+
+    /**
+     * Stores a rendered PDF. Spilled content is renamed into place rather than copied, which is
+     * why the spill directory defaults to this storage directory.
+     *
+     * @param reportKey what the PDF was rendered from; PDFs with the same key share one copy on disk
+     */
+    public String savePdf(PdfBuffer pdfContent, String fileName, String reportKey) throws IOException {
+        return save(pdfContent, fileName, deduplicate ? reportKey : null);
+    }
+
+    /**
+     * Stores a PDF that is later appended to in place. It gets its own copy on disk rather than a
+     * link to a shared content object, which an in-place append would change for every other link.
+     */
+    public String saveAppendablePdf(PdfBuffer pdfContent, String fileName) throws IOException {
+        return save(pdfContent, fileName, null);
+    }
+
+    private String save(PdfBuffer pdfContent, String fileName, String reportKey) throws IOException {
         logger.info("Saving PDF file: {}", fileName);
         
         // Create storage directory if it doesn't exist
-        Path storageDir = Paths.get( PDF_STORAGE_DIR);
+        Path storageDir = getStorageDir();
         if (!Files.exists(storageDir)) {
             logger.debug("Creating PDF storage directory: {}", storageDir);
             Files.createDirectories(storageDir);
@@ -38,12 +127,60 @@ public class FileStorageUtil {
         // Save the file
         Path filePath = storageDir.resolve(uniqueFileName);
         logger.debug("Saving PDF to: {}", filePath);
-        Files.write(filePath, pdfContent);
+        if (reportKey == null || !linkToObject(filePath, pdfContent, reportKey)) {
+            pdfContent.moveTo(filePath);
+        }
         
         logger.info("PDF saved successfully at: {}", filePath);
         return filePath.toString();
     }
 
+    /**
+     * Stores the content once under its report key and hard-links {@code filePath} to it, so
+     * reports rendered from the same inputs share one copy on disk. A later render of the same
+     * report is linked to the first one, generation time included, and its own bytes are dropped.
+     *
+     * @return false if nothing was linked and {@code pdfContent} still has to be written out
+     */
+    private boolean linkToObject(Path filePath, PdfBuffer pdfContent, String reportKey) throws IOException {
+        Path object = getObjectsDir().resolve(reportKey.substring(0, 2)).resolve(reportKey + ".pdf");
+        if (Files.exists(object) && createLink(filePath, object)) {
+            return true;
+        }
+        if (!deduplicate || Files.exists(object)) {
+            return false;
+        }
+
+        Files.createDirectories(object.getParent());
+        Path staged = Files.createTempFile(object.getParent(), reportKey, ".part");
+        pdfContent.moveTo(staged);
+        Files.move(staged, object, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (!createLink(filePath, object)) {
+            // the buffer may have been renamed into the object, so copy it back out
+            Files.copy(object, filePath, StandardCopyOption.REPLACE_EXISTING);
+            if (!deduplicate) {
+                Files.deleteIfExists(object);
+            }
+        }
+        return true;
+    }
+
+    private boolean createLink(Path filePath, Path object) throws IOException {
+        try {
+            Files.createLink(filePath, object);
+            logger.debug("Linked {} to stored object {}", filePath, object);
+            return true;
+        } catch (UnsupportedOperationException e) {
+            logger.warn("File system does not support hard links, disabling PDF deduplication");
+            deduplicate = false;
+            return false;
+        } catch (IOException e) {
+            // also covers the object being collected between the exists check and the link
+            logger.debug("Could not hard-link {} to {}: {}", filePath, object, e.getMessage());
+            return false;
+        }
+    }
+
     public File getPdfFile(String filePath) {
         logger.debug("Retrieving PDF file: {}", filePath);
         return new File(filePath);
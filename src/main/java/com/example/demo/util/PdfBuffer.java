@@ -0,0 +1,351 @@
+package com.example.demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Write-once buffer for a generated document whose heap footprint doesn't depend on its size.
+ * <p>
+ * Content is kept in a (pooled, direct) byte buffer until it outgrows it; from then on it lives in
+ * a temp file and the byte buffer is only used to batch writes. Spilled content is read back
+ * through a read-only memory mapping or moved into place with a rename, so it is never copied
+ * onto the heap. The SHA-256 of the content is computed while it is written.
+ * <p>
+ * Write through {@link #outputStream()}; closing that stream only ends the write phase.
+ * {@link #close()} releases the byte buffer and deletes any temp file still owned. Streams over
+ * in-memory content fail once the buffer is closed, and a pooled byte buffer goes back to the
+ * pool only after the last of them is closed, so a late read can never see another document.
+ * Streams over spilled content read their own mapping and stay readable after {@link #close()}.
+ */
+public final class PdfBuffer implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfBuffer.class);
+
+    private final PdfBufferFactory owner;
+    private final boolean pooled;
+    private final Path spillDir;
+    private final MessageDigest digest;
+
+    private ByteBuffer buffer;
+    private FileChannel channel;
+    private Path spillFile;
+    private long size;
+    private boolean writing = true;
+    private String contentHash;
+    // guarded by this: in-memory input streams still open, and whether close() was called
+    private int openStreams;
+    private volatile boolean closed;
+
+    PdfBuffer(PdfBufferFactory owner, ByteBuffer pooledBuffer, Path spillDir) {
+        this.owner = owner;
+        this.pooled = pooledBuffer != null;
+        this.spillDir = spillDir;
+        this.digest = sha256();
+        if (pooled) {
+            this.buffer = pooledBuffer;
+        } else {
+            // no pooled buffer available: go straight to disk with a small write-behind buffer
+            this.buffer = ByteBuffer.allocate(PdfBufferFactory.UNPOOLED_WRITE_BUFFER);
+            try {
+                spill();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to create spill file in " + spillDir, e);
+            }
+        }
+    }
+
+    public OutputStream outputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                checkWriting();
+                digest.update((byte) b);
+                size++;
+                if (!buffer.hasRemaining()) {
+                    makeRoom();
+                }
+                buffer.put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                checkWriting();
+                digest.update(b, off, len);
+                size += len;
+                if (len <= buffer.remaining()) {
+                    buffer.put(b, off, len);
+                    return;
+                }
+                makeRoom();
+                if (len <= buffer.remaining()) {
+                    buffer.put(b, off, len);
+                } else {
+                    writeFully(ByteBuffer.wrap(b, off, len));
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                finish();
+            }
+        };
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isSpilled() {
+        return spillFile != null;
+    }
+
+    /**
+     * @return the temp file holding the content once spilled, {@code null} while in memory
+     */
+    public Path getSpillFile() throws IOException {
+        finish();
+        return spillFile;
+    }
+
+    public String contentHash() throws IOException {
+        finish();
+        if (contentHash == null) {
+            contentHash = HexFormat.of().formatHex(digest.digest());
+        }
+        return contentHash;
+    }
+
+    public InputStream openInputStream() throws IOException {
+        finish();
+        if (spillFile == null) {
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("PdfBuffer is closed");
+                }
+                openStreams++;
+                return new ByteBufferInputStream(buffer.duplicate().flip(), true);
+            }
+        }
+        // a mapping stays valid after the file is deleted, so these need no tracking
+        if (size <= Integer.MAX_VALUE) {
+            try (FileChannel readChannel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+                return new ByteBufferInputStream(readChannel.map(FileChannel.MapMode.READ_ONLY, 0, size), false);
+            }
+        }
+        return Files.newInputStream(spillFile);
+    }
+
+    public void transferTo(OutputStream outputStream) throws IOException {
+        finish();
+        WritableByteChannel target = Channels.newChannel(outputStream);
+        if (spillFile == null) {
+            ByteBuffer content = buffer.duplicate().flip();
+            while (content.hasRemaining()) {
+                target.write(content);
+            }
+            return;
+        }
+        try (FileChannel readChannel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+            long position = 0;
+            while (position < size) {
+                position += readChannel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    /**
+     * Puts the content at {@code target}, replacing it. Spilled content is renamed into place,
+     * so afterwards this buffer no longer owns a temp file; in-memory content stays readable.
+     */
+    public void moveTo(Path target) throws IOException {
+        finish();
+        if (spillFile == null) {
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer content = buffer.duplicate().flip();
+                while (content.hasRemaining()) {
+                    out.write(content);
+                }
+            }
+            return;
+        }
+        try {
+            Files.move(spillFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(spillFile, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        spillFile = null;
+        // the moved file is the only copy now; nothing left to read from here
+        writing = false;
+        size = 0;
+        buffer.clear();
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close spill file {}: {}", spillFile, e.getMessage());
+            }
+            channel = null;
+        }
+        if (spillFile != null) {
+            try {
+                Files.deleteIfExists(spillFile);
+            } catch (IOException e) {
+                logger.warn("Could not delete spill file {}: {}", spillFile, e.getMessage());
+            }
+            spillFile = null;
+        }
+        synchronized (this) {
+            closed = true;
+            if (openStreams == 0) {
+                releaseBuffer();
+            }
+        }
+    }
+
+    private synchronized void inputStreamClosed() {
+        openStreams--;
+        if (closed && openStreams == 0) {
+            releaseBuffer();
+        }
+    }
+
+    private void releaseBuffer() {
+        if (buffer != null) {
+            if (pooled) {
+                owner.release(buffer);
+            }
+            buffer = null;
+        }
+    }
+
+    private void checkWriting() throws IOException {
+        if (!writing) {
+            throw new IOException("PdfBuffer is no longer writable");
+        }
+    }
+
+    /**
+     * Ends the write phase: pending bytes go to the spill file, which is then closed.
+     */
+    private void finish() throws IOException {
+        if (!writing) {
+            return;
+        }
+        writing = false;
+        if (channel != null) {
+            flushBuffer();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void makeRoom() throws IOException {
+        if (channel == null) {
+            spill();
+        } else {
+            flushBuffer();
+        }
+    }
+
+    private void spill() throws IOException {
+        spillFile = Files.createTempFile(spillDir, "pdf-buffer", ".spill");
+        channel = FileChannel.open(spillFile, StandardOpenOption.WRITE);
+        logger.debug("Spilling PDF buffer to {} after {} bytes", spillFile, buffer.position());
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer source;
+        // counted in openStreams and tied to this buffer's lifetime; false for mapped spill files
+        private final boolean tracked;
+        private boolean streamClosed;
+
+        private ByteBufferInputStream(ByteBuffer source, boolean tracked) {
+            this.source = source;
+            this.tracked = tracked;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkOpen();
+            return source.hasRemaining() ? source.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkOpen();
+            if (len == 0) {
+                return 0;
+            }
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, source.remaining());
+            source.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException {
+            checkOpen();
+            return source.remaining();
+        }
+
+        @Override
+        public void close() {
+            if (!streamClosed) {
+                streamClosed = true;
+                if (tracked) {
+                    inputStreamClosed();
+                }
+            }
+        }
+
+        private void checkOpen() throws IOException {
+            if (streamClosed || (tracked && closed)) {
+                throw new IOException("PdfBuffer is closed");
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out {@link PdfBuffer}s backed by a bounded pool of direct buffers, so the memory held for
+ * in-flight documents is at most {@code pool-size * spill-threshold} however large they get.
+ * <p>
+ * Spill files go to the storage directory by default, so storing a spilled document is a rename.
+ * When the pool is exhausted a buffer spills straight away rather than allocating more memory.
+ */
+@Component
+public class PdfBufferFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfBufferFactory.class);
+
+    static final int UNPOOLED_WRITE_BUFFER = 8 * 1024;
+
+    private final int spillThreshold;
+    private final int poolSize;
+    private final Path spillDir;
+    private final BlockingQueue<ByteBuffer> pool;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public PdfBufferFactory(@Value("${pdf.buffer.spill-threshold:1MB}") DataSize spillThreshold,
+                            @Value("${pdf.buffer.pool-size:32}") int poolSize,
+                            @Value("${pdf.buffer.spill-dir:${pdf.storage.dir:pdf-storage}}") String spillDir) {
+        this.spillThreshold = (int) Math.min(Integer.MAX_VALUE, spillThreshold.toBytes());
+        this.poolSize = poolSize;
+        this.spillDir = Paths.get(spillDir);
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    /**
+     * Small pool spilling to the JVM temp directory, for code running outside the container.
+     */
+    public static PdfBufferFactory withDefaults() {
+        return new PdfBufferFactory(DataSize.ofMegabytes(1), 4, System.getProperty("java.io.tmpdir"));
+    }
+
+    public PdfBuffer create() {
+        try {
+            Files.createDirectories(spillDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create PDF spill directory " + spillDir, e);
+        }
+        return new PdfBuffer(this, acquire(), spillDir);
+    }
+
+    public int getSpillThreshold() {
+        return spillThreshold;
+    }
+
+    private ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer != null) {
+            return buffer;
+        }
+        if (allocated.incrementAndGet() <= poolSize) {
+            return ByteBuffer.allocateDirect(spillThreshold);
+        }
+        allocated.decrementAndGet();
+        logger.debug("PDF buffer pool exhausted ({} buffers), spilling to disk immediately", poolSize);
+        return null;
+    }
+
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        pool.offer(buffer);
+    }
+}
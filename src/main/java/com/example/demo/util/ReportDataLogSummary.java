@@ -0,0 +1,60 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.ReportData;
+
+import java.util.Iterator;
+
+/**
+ * Log argument that describes a {@link ReportData} by its identity and sizes instead of its
+ * contents. Nothing is rendered until the logger calls {@link #toString()}, i.e. only when the
+ * statement's level is enabled, and the output is capped at {@link #MAX_LENGTH} characters
+ * however large the payload is. Item lists are never stringified.
+ */
+public final class ReportDataLogSummary {
+
+    public static final int MAX_LENGTH = 256;
+
+    private static final int MAX_TITLE_LENGTH = 64;
+    private static final int MAX_DATA_KEYS = 10;
+
+    private final ReportData reportData;
+
+    private ReportDataLogSummary(ReportData reportData) {
+        this.reportData = reportData;
+    }
+
+    public static ReportDataLogSummary of(ReportData reportData) {
+        return new ReportDataLogSummary(reportData);
+    }
+
+    @Override
+    public String toString() {
+        if (reportData == null) {
+            return "ReportData[null]";
+        }
+        StringBuilder summary = new StringBuilder(128)
+                .append("ReportData[id=").append(truncate(reportData.getReportId(), MAX_TITLE_LENGTH))
+                .append(", title=").append(truncate(reportData.getTitle(), MAX_TITLE_LENGTH))
+                .append(", items=").append(reportData.getItems() == null ? 0 : reportData.getItems().size());
+        if (reportData.getData() != null && !reportData.getData().isEmpty()) {
+            summary.append(", dataKeys=[");
+            Iterator<String> keys = reportData.getData().keySet().iterator();
+            for (int i = 0; i < MAX_DATA_KEYS && keys.hasNext(); i++) {
+                summary.append(i == 0 ? "" : ", ").append(keys.next());
+            }
+            if (keys.hasNext()) {
+                summary.append(", +").append(reportData.getData().size() - MAX_DATA_KEYS).append(" more");
+            }
+            summary.append(']');
+        }
+        summary.append(']');
+        return truncate(summary.toString(), MAX_LENGTH);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength - 3) + "...";
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Uniform synthetic reports for the generator warm-up, tests and benchmarks: item {@code i} is
+ * named {@code "Item i"}, described as {@code "Description for item i"} and worth {@code i}.
+ * For production-like payloads with varied strings, see the load test's {@code ReportDataSynthesizer}.
+ */
+public final class SyntheticReports {
+
+    private SyntheticReports() {
+    }
+
+    /**
+     * @return a report without {@code data}, whose item list may be modified
+     */
+    public static ReportData of(String reportId, String title, int itemCount) {
+        ReportData reportData = new ReportData();
+        reportData.setReportId(reportId);
+        reportData.setTitle(title);
+        List<ReportItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            ReportItem item = new ReportItem();
+            item.setName("Item " + i);
+            item.setDescription("Description for item " + i);
+            item.setValue(String.valueOf(i));
+            items.add(item);
+        }
+        reportData.setItems(items);
+        return reportData;
+    }
+}
@@ -0,0 +1,44 @@
+<!DOCTYPE html>
+<html>
+<head>
+    <title>${title}</title>
+    <style>
+        @page {
+            margin-bottom: 40px;
+        }
+        body {
+            font-family: Arial, sans-serif;
+            margin: 20px;
+        }
+        table {
+            width: 100%;
+            border-collapse: collapse;
+            margin: 20px 0;
+        }
+        th, td {
+            border: 1px solid #ddd;
+            padding: 8px;
+            text-align: left;
+        }
+        th {
+            background-color: #f2f2f2;
+        }
+    </style>
+</head>
+<body>
+    <table>
+        <tr>
+            <th>Name</th>
+            <th>Description</th>
+            <th>Value</th>
+        </tr>
+        <#list items as item>
+        <tr>
+            <td>${item.name}</td>
+            <td>${item.description}</td>
+            <td>${item.value}</td>
+        </tr>
+        </#list>
+    </table>
+</body>
+</html>
@@ -3,6 +3,12 @@
 <head>
     <title>${title}</title>
     <style>
+        <#-- incremental reports get the footer stamped on every page instead -->
+        <#if footerStamped!false>
+        @page {
+            margin-bottom: 40px;
+        }
+        </#if>
         body {
             font-family: Arial, sans-serif;
             margin: 20px;
@@ -16,6 +22,14 @@
         .content {
             margin: 20px 0;
         }
+        .details th {
+            width: 25%;
+        }
+        .confidential {
+            text-align: center;
+            color: #b00020;
+            font-weight: bold;
+        }
         table {
             width: 100%;
             border-collapse: collapse;
@@ -44,6 +58,26 @@
         <p>Generated on: ${.now?string("yyyy-MM-dd HH:mm:ss")}</p>
     </div>
     
+    <#-- only the fields declared in schemas/report.json are reachable here -->
+    <#if data?? && data?has_content>
+    <div class="content">
+        <#if data.confidential!false>
+        <p class="confidential">Confidential</p>
+        </#if>
+        <table class="details">
+            <#if data.customer??>
+            <tr><th>Customer</th><td>${data.customer}</td></tr>
+            </#if>
+            <#if data.region??>
+            <tr><th>Region</th><td>${data.region}</td></tr>
+            </#if>
+            <#if data.total??>
+            <tr><th>Total</th><td>${data.total?string("0.00")}</td></tr>
+            </#if>
+        </table>
+    </div>
+    </#if>
+
     <div class="content">
         <#if items??>
         <table>
@@ -63,8 +97,10 @@
         </#if>
     </div>
     
+    <#if !(footerStamped!false)>
     <div class="footer">
         <p>This is a sample report generated using FreeMarker and OpenPDF</p>
     </div>
+    </#if>
 </body>
 </html> 
\ No newline at end of file
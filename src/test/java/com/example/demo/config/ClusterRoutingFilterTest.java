@@ -0,0 +1,329 @@
+package com.example.demo.config;
+
+import com.example.demo.controller.GenerationRequests;
+import com.example.demo.controller.PdfController;
+import com.example.demo.dto.ReportData;
+import com.example.demo.service.PdfOutputProfile;
+import com.example.demo.service.ReportKey;
+import com.example.demo.service.cluster.ClusterMembership;
+import com.example.demo.service.cluster.PeerClient;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClusterRoutingFilterTest {
+
+    private static final String SELF = "http://self";
+    private static final String SECRET = "s3cret";
+    private static final byte[] BODY = """
+            {"reportId": "REP-1", "title": "Routed", "items": []}""".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] PDF = "%PDF-1.4 from the owner".getBytes(StandardCharsets.US_ASCII);
+
+    private final ClusterMembership clusterMembership = mock(ClusterMembership.class);
+    private final AtomicReference<Headers> peerRequestHeaders = new AtomicReference<>();
+    private final AtomicInteger peerRequests = new AtomicInteger();
+    private final CountDownLatch releasePeer = new CountDownLatch(1);
+
+    private HttpServer peer;
+    private String peerUrl;
+    private volatile boolean peerStalls;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        peer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        peer.createContext("/", exchange -> {
+            peerRequests.incrementAndGet();
+            peerRequestHeaders.set(exchange.getRequestHeaders());
+            exchange.getRequestBody().readAllBytes();
+            if (peerStalls) {
+                awaitRelease();
+            }
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_PDF_VALUE);
+            exchange.getResponseHeaders().set(PdfController.REPORT_ID_HEADER, "stored-42");
+            exchange.sendResponseHeaders(200, PDF.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PDF);
+            }
+        });
+        peer.start();
+        peerUrl = "http://127.0.0.1:" + peer.getAddress().getPort();
+
+        when(clusterMembership.isEnabled()).thenReturn(true);
+        when(clusterMembership.self()).thenReturn(SELF);
+        when(clusterMembership.isTrusted(SECRET)).thenReturn(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        releasePeer.countDown();
+        peer.stop(0);
+    }
+
+    @Test
+    void handlesRequestsItOwnsLocally() throws Exception {
+        when(clusterMembership.ownerOf(anyString())).thenReturn(SELF);
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertArrayEquals(BODY, chain.getRequest().getInputStream().readAllBytes());
+        assertEquals(SELF, response.getHeader(ClusterRoutingFilter.NODE_HEADER));
+        assertEquals(0, peerRequests.get());
+    }
+
+    @Test
+    void forwardsToTheOwnerAndReturnsItsResponse() throws Exception {
+        when(clusterMembership.ownerOf(anyString())).thenReturn(peerUrl);
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        request.addHeader(GenerationRequests.TIMEOUT_HEADER, "5000");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, chain);
+        awaitAsyncEnd(request);
+
+        assertNull(chain.getRequest());
+        Headers forwarded = peerRequestHeaders.get();
+        assertEquals("5000", forwarded.getFirst(GenerationRequests.TIMEOUT_HEADER));
+        assertEquals(MediaType.APPLICATION_JSON_VALUE, forwarded.getFirst(HttpHeaders.CONTENT_TYPE));
+        assertEquals(SELF, forwarded.getFirst(PeerClient.FORWARDED_HEADER));
+        assertEquals(SECRET, forwarded.getFirst(PeerClient.SECRET_HEADER));
+
+        assertEquals(200, response.getStatus());
+        assertEquals(peerUrl, response.getHeader(ClusterRoutingFilter.NODE_HEADER));
+        assertEquals("stored-42", response.getHeader(PdfController.REPORT_ID_HEADER));
+        assertEquals(MediaType.APPLICATION_PDF_VALUE, response.getContentType());
+        assertArrayEquals(PDF, response.getContentAsByteArray());
+    }
+
+    @Test
+    void generatesLocallyWhenTheOwnerIsUnreachable() throws Exception {
+        when(clusterMembership.ownerOf(anyString())).thenReturn(unreachableUrl());
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, new MockFilterChain());
+        awaitAsyncEnd(request);
+
+        // the async dispatch runs the request through the chain again, where this filter is skipped
+        MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+        assertEquals("/api/pdf/generate", async.getDispatchedPath());
+        assertArrayEquals(BODY, async.getRequest().getInputStream().readAllBytes());
+        assertEquals(SELF, response.getHeader(ClusterRoutingFilter.NODE_HEADER));
+    }
+
+    @Test
+    void doesNotAppendElsewhereWhenTheOwnerIsUnreachable() throws Exception {
+        when(clusterMembership.ownerOf("append:REP-1")).thenReturn(unreachableUrl());
+        MockHttpServletRequest request = generateRequest("/api/pdf/append");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, new MockFilterChain());
+        awaitAsyncEnd(request);
+
+        assertNull(((MockAsyncContext) request.getAsyncContext()).getDispatchedPath());
+        assertEquals(503, response.getStatus());
+        assertNotNull(response.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void timesOutWithoutGeneratingLocallyWhenTheOwnerDoesNotAnswer() throws Exception {
+        peerStalls = true;
+        when(clusterMembership.ownerOf(anyString())).thenReturn(peerUrl);
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter(Duration.ofMillis(200)).doFilter(request, response, new MockFilterChain());
+        awaitAsyncEnd(request);
+
+        assertNull(((MockAsyncContext) request.getAsyncContext()).getDispatchedPath());
+        assertEquals(504, response.getStatus());
+    }
+
+    @Test
+    void handlesForwardedRequestsLocallySoTheyNeverBounce() throws Exception {
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        request.addHeader(PeerClient.FORWARDED_HEADER, "http://other");
+        request.addHeader(PeerClient.SECRET_HEADER, SECRET);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(SELF, response.getHeader(ClusterRoutingFilter.NODE_HEADER));
+        assertEquals(0, peerRequests.get());
+    }
+
+    @Test
+    void rejectsForwardedRequestsWithoutTheSecret() throws Exception {
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        request.addHeader(PeerClient.FORWARDED_HEADER, "http://other");
+        request.addHeader(PeerClient.SECRET_HEADER, "guess");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter(Duration.ofSeconds(10)).doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(403, response.getStatus());
+    }
+
+    @Test
+    void routesByReportKeyAndAppendsByReportId() {
+        ClusterRoutingFilter filter = filter(Duration.ofSeconds(10));
+        byte[] other = """
+                {"reportId": "REP-2", "title": "Routed", "items": []}""".getBytes(StandardCharsets.UTF_8);
+        byte[] reordered = """
+                {"items": [], "title": "Routed", "reportId": "REP-1"}""".getBytes(StandardCharsets.UTF_8);
+
+        String key = filter.routingKey("/api/pdf/generate", null, BODY);
+        assertEquals(key, filter.routingKey("/api/pdf/generate", null, reordered));
+        assertEquals(key, filter.routingKey("/api/pdf/generate", "DEFAULT", BODY));
+        assertNotEquals(key, filter.routingKey("/api/pdf/generate", null, other));
+        assertNotEquals(key, filter.routingKey("/api/pdf/generate", "SMALLEST", BODY));
+        assertNotEquals(key, filter.routingKey("/api/pdf/generate/native", null, BODY));
+        assertEquals("append:REP-1", filter.routingKey("/api/pdf/append", null, BODY));
+        assertNull(filter.routingKey("/api/pdf/generate", null, "not json".getBytes(StandardCharsets.UTF_8)));
+        assertNull(filter.routingKey("/api/pdf/generate", "HUGE", BODY));
+        assertNull(filter.routingKey("/api/pdf/append", null, "not json".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void routesGenerateRequestsOnTheKeyTheyAreCoalescedOn() throws Exception {
+        ReportData reportData = new ObjectMapper().readValue(BODY, ReportData.class);
+
+        assertEquals("report.ftl:" + ReportKey.of("report.ftl", PdfOutputProfile.DEFAULT, reportData),
+                filter(Duration.ofSeconds(10)).routingKey("/api/pdf/generate", null, BODY));
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimitWithoutRouting() throws Exception {
+        ClusterRoutingFilter filter = filter(Duration.ofSeconds(10), DataSize.ofBytes(BODY.length - 1));
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(413, response.getStatus());
+        verify(clusterMembership, never()).ownerOf(anyString());
+    }
+
+    @Test
+    void rejectsBodiesOverTheLimitWithoutAContentLength() throws Exception {
+        ClusterRoutingFilter filter = filter(Duration.ofSeconds(10), DataSize.ofBytes(BODY.length - 1));
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/pdf/generate") {
+            @Override
+            public long getContentLengthLong() {
+                // chunked
+                return -1;
+            }
+        };
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(BODY);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(413, response.getStatus());
+    }
+
+    @Test
+    void acceptsBodiesAtTheLimit() throws Exception {
+        when(clusterMembership.ownerOf(anyString())).thenReturn(SELF);
+        ClusterRoutingFilter filter = filter(Duration.ofSeconds(10), DataSize.ofBytes(BODY.length));
+        MockHttpServletRequest request = generateRequest("/api/pdf/generate");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertArrayEquals(BODY, chain.getRequest().getInputStream().readAllBytes());
+    }
+
+    private ClusterRoutingFilter filter(Duration forwardTimeout) {
+        return filter(forwardTimeout, DataSize.ofMegabytes(1));
+    }
+
+    private ClusterRoutingFilter filter(Duration forwardTimeout, DataSize maxBodySize) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setSecret(SECRET);
+        properties.setConnectTimeout(Duration.ofSeconds(2));
+        properties.setForwardTimeout(forwardTimeout);
+        properties.setMaxBodySize(maxBodySize);
+        return new ClusterRoutingFilter(clusterMembership, new PeerClient(properties), new ObjectMapper(), properties);
+    }
+
+    private static MockHttpServletRequest generateRequest(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", path);
+        request.setAsyncSupported(true);
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.setContent(BODY);
+        return request;
+    }
+
+    private static String unreachableUrl() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return "http://127.0.0.1:" + socket.getLocalPort();
+        }
+    }
+
+    private static void awaitAsyncEnd(MockHttpServletRequest request) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            MockAsyncContext async = (MockAsyncContext) request.getAsyncContext();
+            if (!request.isAsyncStarted() || (async != null && async.getDispatchedPath() != null)) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        fail("request still waiting for the owner");
+    }
+
+    private void awaitRelease() {
+        try {
+            releasePeer.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.config;
 
+import freemarker.core.HTMLOutputFormat;
 import freemarker.template.Configuration;
 import freemarker.template.TemplateExceptionHandler;
 import org.springframework.boot.test.context.TestConfiguration;
@@ -22,6 +23,7 @@ public class TestFreemarkerConfig {
         configuration.setLogTemplateExceptions(false);
         configuration.setWrapUncheckedExceptions(true);
         configuration.setFallbackOnNullLoopVariable(false);
+        configuration.setOutputFormat(HTMLOutputFormat.INSTANCE);
         return configuration;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,125 @@
+package com.example.demo.controller;
+
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.service.GenerationOptions;
+import com.example.demo.service.IPdfGenerator;
+import com.example.demo.service.ReportService;
+import com.example.demo.util.FileStorageUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PdfControllerTest {
+
+    private static final String BODY = """
+            {"reportId": "REP-1", "title": "Stored", "items": [
+              {"name": "Item 1", "description": "First", "value": "100"}
+            ]}""";
+
+    private final IPdfGenerator pdfGenerator = mock(IPdfGenerator.class);
+    private final ReportService reportService = mock(ReportService.class);
+
+    private MockMvc mockMvc;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PdfController(pdfGenerator, mock(IPdfGenerator.class), mock(IPdfGenerator.class),
+                        mock(IPdfGenerator.class), new GenerationRequests(new SyncTaskExecutor()), reportService,
+                        new FileStorageUtil()))
+                .build();
+    }
+
+    @Test
+    void generateReturnsTheIdOfTheStoredReport() throws Exception {
+        Path pdf = storedPdf();
+        when(pdfGenerator.generatePdf(any(), any(GenerationOptions.class))).thenReturn(pdf.toString());
+        when(reportService.getReportByFilePath(pdf.toString())).thenReturn(Optional.of(report("stored-42", pdf)));
+
+        MvcResult result = mockMvc.perform(post("/api/pdf/generate")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PdfController.REPORT_ID_HEADER, "stored-42"));
+    }
+
+    @Test
+    void generateOmitsTheIdWhenTheOutputIsNotStored() throws Exception {
+        Path pdf = storedPdf();
+        when(pdfGenerator.generatePdf(any(), any(GenerationOptions.class))).thenReturn(pdf.toString());
+        when(reportService.getReportByFilePath(pdf.toString())).thenReturn(Optional.empty());
+
+        MvcResult result = mockMvc.perform(post("/api/pdf/generate")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PdfController.REPORT_ID_HEADER));
+    }
+
+    @Test
+    void downloadsAStoredReportById() throws Exception {
+        Path pdf = storedPdf();
+        Report report = report("stored-42", pdf);
+        when(reportService.getReport("stored-42")).thenReturn(Optional.of(report));
+        when(reportService.getReportByFilePath(pdf.toString())).thenReturn(Optional.of(report));
+
+        mockMvc.perform(get("/api/pdf/reports/stored-42"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_PDF))
+                .andExpect(header().string(PdfController.REPORT_ID_HEADER, "stored-42"))
+                .andExpect(content().bytes(Files.readAllBytes(pdf)));
+    }
+
+    @Test
+    void unknownOrMissingReportsAreNotFound() throws Exception {
+        when(reportService.getReport("unknown")).thenReturn(Optional.empty());
+        when(reportService.getReport("gone")).thenReturn(Optional.of(report("gone", tempDir.resolve("gone.pdf"))));
+
+        mockMvc.perform(get("/api/pdf/reports/unknown")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/pdf/reports/gone")).andExpect(status().isNotFound());
+    }
+
+    private Path storedPdf() throws Exception {
+        return Files.write(tempDir.resolve("stored.pdf"), "%PDF-1.4 stored".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Report report(String reportId, Path pdf) {
+        Report report = new Report();
+        report.setReportId(reportId);
+        report.setTitle("Stored");
+        report.setStatus(ReportStatus.COMPLETED);
+        report.setFilePath(pdf.toString());
+        return report;
+    }
+}
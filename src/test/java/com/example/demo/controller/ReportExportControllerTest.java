@@ -0,0 +1,155 @@
+package com.example.demo.controller;
+
+import com.example.demo.config.TestFreemarkerConfig;
+import com.example.demo.config.WebConfig;
+import com.example.demo.exception.GenerationExceptionHandler;
+import com.example.demo.service.GenerationOptions;
+import com.example.demo.service.IPdfGenerator;
+import com.example.demo.service.PdfGeneratorService;
+import com.example.demo.service.PdfOutputOptimizer;
+import com.example.demo.service.export.CsvReportExporter;
+import com.example.demo.service.export.HtmlReportExporter;
+import com.example.demo.service.export.XlsxReportExporter;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBufferFactory;
+import freemarker.template.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.format.support.DefaultFormattingConversionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ReportExportControllerTest {
+
+    private static final String BODY = """
+            {"reportId": "REP-1", "title": "Export", "items": [
+              {"name": "Item 1", "description": "First", "value": "100"}
+            ]}""";
+
+    private final IPdfGenerator pdfGenerator = mock(IPdfGenerator.class);
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        DefaultFormattingConversionService conversionService = new DefaultFormattingConversionService();
+        new WebConfig().addFormatters(conversionService);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new ReportExportController(pdfGenerator,
+                        List.of(new CsvReportExporter(), new XlsxReportExporter(), htmlReportExporter()),
+                        new GenerationRequests(new SyncTaskExecutor()), new FileStorageUtil()))
+                .setControllerAdvice(new GenerationExceptionHandler())
+                .setConversionService(conversionService)
+                .build();
+    }
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void formatParameterIsCaseInsensitiveAndWinsOverAccept() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/export").param("format", "csv")
+                        .header(HttpHeaders.ACCEPT, "application/pdf")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streaming = mockMvc.perform(asyncDispatch(result))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report.csv"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(streaming))
+                .andExpect(status().isOk())
+                .andExpect(content().string("name,description,value\r\nItem 1,First,100\r\n"));
+        verifyNoInteractions(pdfGenerator);
+    }
+
+    @Test
+    void acceptHeaderQualityPicksTheFormat() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/export")
+                        .header(HttpHeaders.ACCEPT,
+                                "text/csv;q=0.4, application/vnd.openxmlformats-officedocument.spreadsheetml.sheet;q=0.8")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report.xlsx"));
+    }
+
+    @Test
+    void pdfIsGeneratedUnderTheRequestDeadline() throws Exception {
+        Path pdf = Files.write(tempDir.resolve("report.pdf"), "%PDF-1.4".getBytes(StandardCharsets.US_ASCII));
+        when(pdfGenerator.generatePdf(any(), any(GenerationOptions.class))).thenReturn(pdf.toString());
+
+        MvcResult result = mockMvc.perform(post("/api/export")
+                        .header(GenerationRequests.TIMEOUT_HEADER, "5000")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult streaming = mockMvc.perform(asyncDispatch(result))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=report.pdf"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streaming))
+                .andExpect(content().string("%PDF-1.4"));
+
+        ArgumentCaptor<GenerationOptions> options = ArgumentCaptor.forClass(GenerationOptions.class);
+        verify(pdfGenerator).generatePdf(any(), options.capture());
+        assertNotNull(options.getValue().getCancellation().getDeadline());
+    }
+
+    @Test
+    void rejectedDataIsABadRequestBeforeAnythingIsStreamed() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/export").param("format", "html")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"reportId": "REP-1", "title": "Export", "items": [], "data": {"total": "lots"}}"""))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_DISPOSITION));
+        verifyNoInteractions(pdfGenerator);
+    }
+
+    @Test
+    void unknownFormatIsABadRequest() throws Exception {
+        mockMvc.perform(post("/api/export").param("format", "docx")
+                        .contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(pdfGenerator);
+    }
+
+    private static HtmlReportExporter htmlReportExporter() throws Exception {
+        Configuration freemarkerConfig = new TestFreemarkerConfig().customFreemarkerConfig();
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        return new HtmlReportExporter(freemarkerConfig, new PdfGeneratorService(freemarkerConfig, new FileStorageUtil(),
+                mock(ReportRepository.class), new PdfOutputOptimizer(bufferFactory), bufferFactory,
+                DataSchemaRegistry.withDefaults()));
+    }
+}
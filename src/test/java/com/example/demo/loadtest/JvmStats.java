@@ -0,0 +1,41 @@
+package com.example.demo.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+/**
+ * Heap and GC counters of this JVM, which also hosts the embedded server under test.
+ */
+public record JvmStats(long heapUsedBytes, long heapCommittedBytes, long peakHeapBytes,
+                       long gcCount, long gcTimeMillis) {
+
+    /**
+     * Resets the heap pools' peak usage so the next {@link #capture()} reports the peak of the run.
+     */
+    public static void resetPeaks() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    public static JvmStats capture() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        long gcCount = 0;
+        long gcTime = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCount += Math.max(0, collector.getCollectionCount());
+            gcTime += Math.max(0, collector.getCollectionTime());
+        }
+        var heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return new JvmStats(heap.getUsed(), heap.getCommitted(), peak, gcCount, gcTime);
+    }
+}
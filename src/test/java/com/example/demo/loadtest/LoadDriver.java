@@ -0,0 +1,121 @@
+package com.example.demo.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model HTTP load generator: requests are started on a fixed schedule at the target rate,
+ * whether or not earlier ones have finished, like independent users would.
+ * <p>
+ * Response time is measured from each request's scheduled start rather than from when it was
+ * actually sent, so a stalled server shows up in the percentiles instead of silently lowering
+ * the offered load (coordinated omission). Service time, from the actual send, is kept separately.
+ */
+public class LoadDriver {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int PAYLOAD_POOL_SIZE = 16;
+
+    private final HttpClient httpClient;
+    private final URI target;
+    private final List<String> payloads;
+
+    public LoadDriver(HttpClient httpClient, URI target, ReportDataSynthesizer synthesizer, ObjectMapper objectMapper)
+            throws JsonProcessingException {
+        this.httpClient = httpClient;
+        this.target = target;
+        // serialised up front so JSON encoding on the driver doesn't distort the schedule
+        this.payloads = new ArrayList<>(PAYLOAD_POOL_SIZE);
+        for (int i = 0; i < PAYLOAD_POOL_SIZE; i++) {
+            payloads.add(objectMapper.writeValueAsString(synthesizer.next()));
+        }
+    }
+
+    /**
+     * Offers {@code ratePerSecond} requests per second for {@code duration}, with at most
+     * {@code maxInFlight} outstanding. Requests beyond that are not sent; they count as dropped and
+     * are recorded as failures at {@code requestTimeout}, the soonest a real client would have
+     * given up, so the percentiles still include them.
+     */
+    public LoadResult run(double ratePerSecond, Duration duration, int maxInFlight, Duration requestTimeout)
+            throws InterruptedException {
+        Recorder responseTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Recorder serviceTimes = new Recorder(HIGHEST_TRACKABLE_MICROS, 3);
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        LongAdder failures = new LongAdder();
+        AtomicLong responseBytes = new AtomicLong();
+        Semaphore inFlight = new Semaphore(maxInFlight);
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        long total = (long) (ratePerSecond * duration.toMillis() / 1000.0);
+        long dropped = 0;
+        long timeoutMicros = Math.min(HIGHEST_TRACKABLE_MICROS, requestTimeout.toNanos() / 1_000);
+
+        JvmStats.resetPeaks();
+        JvmStats before = JvmStats.capture();
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * intervalNanos;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                // leaving it out of the histogram would hide exactly the overload we're measuring
+                dropped++;
+                responseTimes.recordValue(timeoutMicros);
+                continue;
+            }
+
+            HttpRequest request = HttpRequest.newBuilder(target)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(payloads.get((int) (i % payloads.size()))))
+                    .build();
+            long sent = System.nanoTime();
+            // count the body without keeping it, the server shares this heap
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArrayConsumer(
+                            chunk -> chunk.ifPresent(bytes -> responseBytes.addAndGet(bytes.length))))
+                    .whenComplete((response, error) -> {
+                        long now = System.nanoTime();
+                        responseTimes.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - scheduled) / 1_000));
+                        serviceTimes.recordValue(Math.min(HIGHEST_TRACKABLE_MICROS, (now - sent) / 1_000));
+                        if (error != null) {
+                            failures.increment();
+                        } else {
+                            statuses.computeIfAbsent(response.statusCode(), code -> new LongAdder()).increment();
+                        }
+                        inFlight.release();
+                    });
+        }
+
+        // drain: everything still outstanding completes or times out
+        inFlight.tryAcquire(maxInFlight, requestTimeout.toMillis() + 1_000, TimeUnit.MILLISECONDS);
+        long elapsedNanos = System.nanoTime() - start;
+        JvmStats after = JvmStats.capture();
+
+        Histogram responseHistogram = responseTimes.getIntervalHistogram();
+        Histogram serviceHistogram = serviceTimes.getIntervalHistogram();
+        Map<Integer, Long> statusCounts = new ConcurrentHashMap<>();
+        statuses.forEach((code, count) -> statusCounts.put(code, count.sum()));
+        return new LoadResult(target, ratePerSecond, total, dropped, failures.sum(), statusCounts,
+                responseBytes.get(), elapsedNanos, responseHistogram, serviceHistogram, before, after);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Outcome of one {@link LoadDriver} run. Latencies are in microseconds. Response times include
+ * dropped requests at the request timeout; service times only cover requests that were sent.
+ */
+public record LoadResult(URI target, double targetRate, long scheduled, long dropped, long failures,
+                         Map<Integer, Long> statusCounts, long responseBytes, long elapsedNanos,
+                         Histogram responseTimes, Histogram serviceTimes, JvmStats before, JvmStats after) {
+
+    public long completed() {
+        return statusCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public long succeeded() {
+        return statusCounts.entrySet().stream()
+                .filter(entry -> entry.getKey() >= 200 && entry.getKey() < 300)
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+    }
+
+    /**
+     * Non-2xx responses, transport failures and dropped requests over everything scheduled.
+     */
+    public double errorRate() {
+        return scheduled == 0 ? 0 : (double) (scheduled - succeeded()) / scheduled;
+    }
+
+    public double throughput() {
+        return succeeded() / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    /**
+     * Writes the summary to {@code <dir>/<name>.txt} and the response-time percentile
+     * distribution to {@code <dir>/<name>.hgrm} (plottable with HdrHistogram's plotter).
+     */
+    public void writeReport(Path dir, String name) throws IOException {
+        Files.createDirectories(dir);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(name + ".txt")), false, StandardCharsets.UTF_8)) {
+            print(out);
+        }
+        try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(name + ".hgrm")), false, StandardCharsets.UTF_8)) {
+            responseTimes.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    public void print(PrintStream out) {
+        double seconds = elapsedNanos / 1_000_000_000.0;
+        out.printf("target            %s%n", target);
+        out.printf("offered rate      %.1f req/s for %.1f s (%d scheduled)%n", targetRate, seconds, scheduled);
+        out.printf("throughput        %.2f req/s succeeded, %.2f MB/s%n", throughput(), responseBytes / seconds / 1_048_576);
+        out.printf("errors            %.2f%% (dropped %d, failed %d, statuses %s)%n",
+                errorRate() * 100, dropped, failures, new TreeMap<>(statusCounts));
+        out.printf("response time ms  p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                millis(responseTimes, 50), millis(responseTimes, 90), millis(responseTimes, 99),
+                millis(responseTimes, 99.9), responseTimes.getMaxValue() / 1000.0);
+        out.printf("service time ms   p50 %.1f  p90 %.1f  p99 %.1f  p99.9 %.1f  max %.1f%n",
+                millis(serviceTimes, 50), millis(serviceTimes, 90), millis(serviceTimes, 99),
+                millis(serviceTimes, 99.9), serviceTimes.getMaxValue() / 1000.0);
+        out.printf("heap MB           before %d, after %d, peak %d, committed %d%n",
+                mb(before.heapUsedBytes()), mb(after.heapUsedBytes()), mb(after.peakHeapBytes()),
+                mb(after.heapCommittedBytes()));
+        out.printf("gc                %d collections, %d ms%n",
+                after.gcCount() - before.gcCount(), after.gcTimeMillis() - before.gcTimeMillis());
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private static long mb(long bytes) {
+        return bytes / 1_048_576;
+    }
+}
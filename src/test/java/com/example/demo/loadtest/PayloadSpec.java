@@ -0,0 +1,53 @@
+package com.example.demo.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Shape of the synthetic {@link com.example.demo.dto.ReportData} payloads: how many items,
+ * how long their strings are, and how wide and deep the free-form {@code data} map is.
+ */
+@Value
+@Builder
+public class PayloadSpec {
+
+    @Builder.Default
+    int itemCount = 500;
+
+    @Builder.Default
+    int minStringLength = 8;
+
+    @Builder.Default
+    int maxStringLength = 64;
+
+    /** Keys per level of the {@code data} map; 0 leaves it out, which keeps Jasper-compatible payloads. */
+    @Builder.Default
+    int dataKeys = 0;
+
+    @Builder.Default
+    int dataDepth = 1;
+
+    @Builder.Default
+    int dataValueLength = 32;
+
+    @Builder.Default
+    long seed = 42L;
+
+    /**
+     * Reads {@code loadtest.items}, {@code loadtest.string-min}, {@code loadtest.string-max},
+     * {@code loadtest.data-keys}, {@code loadtest.data-depth}, {@code loadtest.data-value-length}
+     * and {@code loadtest.seed}, keeping the defaults for anything unset.
+     */
+    public static PayloadSpec fromSystemProperties() {
+        PayloadSpec defaults = PayloadSpec.builder().build();
+        return PayloadSpec.builder()
+                .itemCount(Integer.getInteger("loadtest.items", defaults.itemCount))
+                .minStringLength(Integer.getInteger("loadtest.string-min", defaults.minStringLength))
+                .maxStringLength(Integer.getInteger("loadtest.string-max", defaults.maxStringLength))
+                .dataKeys(Integer.getInteger("loadtest.data-keys", defaults.dataKeys))
+                .dataDepth(Integer.getInteger("loadtest.data-depth", defaults.dataDepth))
+                .dataValueLength(Integer.getInteger("loadtest.data-value-length", defaults.dataValueLength))
+                .seed(Long.getLong("loadtest.seed", defaults.seed))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds {@link ReportData} payloads of production-like size from a {@link PayloadSpec}.
+ * Seeded, so a run can be repeated with exactly the same payloads.
+ */
+public class ReportDataSynthesizer {
+
+    // mostly ASCII with some accented and wide characters, which exercise font and encoding paths
+    private static final String ALPHABET =
+            "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789     .,-äöüéèçñßøå€";
+
+    private final PayloadSpec spec;
+    private final Random random;
+    private int sequence;
+
+    public ReportDataSynthesizer(PayloadSpec spec) {
+        this.spec = spec;
+        this.random = new Random(spec.getSeed());
+    }
+
+    public ReportData next() {
+        sequence++;
+        ReportData reportData = new ReportData();
+        reportData.setReportId("LOAD-" + sequence);
+        reportData.setTitle("Load test report " + sequence + " " + text());
+
+        List<ReportItem> items = new ArrayList<>(spec.getItemCount());
+        for (int i = 0; i < spec.getItemCount(); i++) {
+            ReportItem item = new ReportItem();
+            item.setName("Item " + i + " " + text());
+            item.setDescription(text());
+            item.setValue(String.valueOf(random.nextInt(1_000_000)));
+            items.add(item);
+        }
+        reportData.setItems(items);
+
+        if (spec.getDataKeys() > 0) {
+            reportData.setData(dataMap(spec.getDataDepth()));
+        }
+        return reportData;
+    }
+
+    private Map<String, Object> dataMap(int depth) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < spec.getDataKeys(); i++) {
+            String key = "field" + i;
+            if (depth > 1 && i % 2 == 0) {
+                map.put(key, dataMap(depth - 1));
+            } else {
+                map.put(key, randomString(spec.getDataValueLength()));
+            }
+        }
+        return map;
+    }
+
+    private String text() {
+        int span = Math.max(0, spec.getMaxStringLength() - spec.getMinStringLength());
+        return randomString(spec.getMinStringLength() + (span == 0 ? 0 : random.nextInt(span + 1)));
+    }
+
+    private String randomString(int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return text.toString();
+    }
+}
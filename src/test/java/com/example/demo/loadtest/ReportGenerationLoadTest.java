@@ -0,0 +1,83 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.PdfReportDocsApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the generate endpoints of an embedded server at a fixed request rate with synthetic
+ * payloads and writes latency, throughput, error, heap and GC figures to {@code target/loadtest}.
+ * <p>
+ * Run with {@code mvn test -Dtest=ReportGenerationLoadTest -Dloadtest=true}, tuned with e.g.
+ * {@code -Dloadtest.rate=10 -Dloadtest.duration=PT60S -Dloadtest.items=5000 -Dloadtest.string-max=200}.
+ * See {@link PayloadSpec#fromSystemProperties()} for the payload settings.
+ */
+@SpringBootTest(classes = PdfReportDocsApplication.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "pdf.storage.dir=target/loadtest/pdf-storage",
+                "pdf.warmup.enabled=false",
+                "pdf.storage.lifecycle.enabled=false",
+                // the driver cycles through a small pool of payloads, which would otherwise share renders
+                "pdf.coalescing.enabled=false"
+        })
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ReportGenerationLoadTest {
+
+    private static final Path REPORT_DIR = Path.of("target", "loadtest");
+
+    private final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "5"));
+    private final Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private final Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private final int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 64);
+    private final Duration requestTimeout = Duration.parse(System.getProperty("loadtest.timeout", "PT60S"));
+    private final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.max-error-rate", "0.01"));
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void freemarkerEndpoint() throws Exception {
+        runScenario("freemarker", "/api/pdf/generate");
+    }
+
+    @Test
+    void jasperEndpoint() throws Exception {
+        runScenario("jasper", "/api/reports/generate");
+    }
+
+    private void runScenario(String name, String path) throws Exception {
+        PayloadSpec spec = PayloadSpec.fromSystemProperties();
+        URI target = URI.create("http://localhost:" + port + path);
+        LoadDriver driver = new LoadDriver(httpClient, target, new ReportDataSynthesizer(spec), objectMapper);
+
+        // same rate, results discarded: JIT, template caches and connection pools settle first
+        driver.run(rate, warmup, maxInFlight, requestTimeout);
+        LoadResult result = driver.run(rate, duration, maxInFlight, requestTimeout);
+
+        System.out.printf("=== %s (%s) ===%n", name, spec);
+        result.print(System.out);
+        result.writeReport(REPORT_DIR, name);
+
+        assertTrue(result.errorRate() <= maxErrorRate,
+                () -> String.format("%s error rate %.2f%% above %.2f%%", name, result.errorRate() * 100, maxErrorRate * 100));
+    }
+}
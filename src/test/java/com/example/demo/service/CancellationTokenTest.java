@@ -0,0 +1,58 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.GenerationCancelledException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CancellationTokenTest {
+
+    @Test
+    void passedDeadlineFailsTheNextCheckpoint() {
+        CancellationToken cancellation = CancellationToken.withTimeout(Duration.ZERO);
+
+        GenerationCancelledException e = assertThrows(GenerationCancelledException.class,
+                () -> cancellation.checkpoint("layout"));
+        assertTrue(e.getMessage().contains("deadline exceeded"));
+    }
+
+    @Test
+    void callbacksRunOnceAndNotAfterUnregistering() {
+        CancellationToken cancellation = CancellationToken.create();
+        AtomicInteger kept = new AtomicInteger();
+        AtomicInteger removed = new AtomicInteger();
+        cancellation.onCancel(kept::incrementAndGet);
+        cancellation.onCancel(removed::incrementAndGet).close();
+
+        cancellation.cancel("client disconnected");
+        cancellation.cancel("deadline exceeded");
+
+        assertEquals(1, kept.get());
+        assertEquals(0, removed.get());
+        assertThrows(GenerationCancelledException.class, () -> cancellation.checkpoint("save"));
+    }
+
+    @Test
+    void awaitCancelsWorkThatOutlivesTheDeadline() {
+        CancellationToken cancellation = CancellationToken.withTimeout(Duration.ofMillis(50));
+        CompletableFuture<String> work = new CompletableFuture<>();
+        cancellation.onCancel(() -> work.completeExceptionally(new IllegalStateException("stopped")));
+
+        CompletionException e = assertThrows(CompletionException.class, () -> cancellation.await(work));
+        assertEquals("stopped", e.getCause().getMessage());
+        assertTrue(cancellation.isCancelled());
+    }
+
+    @Test
+    void noneIsNeverCancelled() {
+        CancellationToken.NONE.cancel("ignored");
+
+        assertFalse(CancellationToken.NONE.isCancelled());
+        assertDoesNotThrow(() -> CancellationToken.NONE.checkpoint("anything"));
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.util.SyntheticReports;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CoalescingPdfGeneratorTest {
+
+    private static final int CALLERS = 16;
+
+    private final AtomicInteger renders = new AtomicInteger();
+    private final CountDownLatch renderStarted = new CountDownLatch(1);
+    private final CountDownLatch releaseRender = new CountDownLatch(1);
+    private volatile CancellationToken renderCancellation;
+
+    private ExecutorService callers;
+    private CoalescingPdfGenerator coalescingPdfGenerator;
+
+    @BeforeEach
+    void setUp() {
+        callers = Executors.newFixedThreadPool(CALLERS);
+        coalescingPdfGenerator = new CoalescingPdfGenerator(new IPdfGenerator() {
+            @Override
+            public String generatePdf(ReportData reportData) {
+                return generatePdf(reportData, GenerationOptions.defaults());
+            }
+
+            @Override
+            public String generatePdf(ReportData reportData, GenerationOptions options) {
+                int render = renders.incrementAndGet();
+                renderCancellation = options.getCancellation();
+                renderStarted.countDown();
+                try {
+                    while (!releaseRender.await(10, TimeUnit.MILLISECONDS)) {
+                        options.getCancellation().checkpoint("layout");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new PDFGenerationException("interrupted", e);
+                }
+                return "/tmp/report-" + render + ".pdf";
+            }
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        releaseRender.countDown();
+        callers.shutdownNow();
+    }
+
+    @Test
+    void concurrentDuplicatesShareOneRender() throws Exception {
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            // equal payloads built independently, with the data map in a different order each time
+            ReportData reportData = reportData(i % 2 == 0);
+            results.add(CompletableFuture.supplyAsync(() -> coalescingPdfGenerator.generatePdf(reportData), callers));
+        }
+        awaitWaiters(CALLERS);
+        releaseRender.countDown();
+
+        for (CompletableFuture<String> result : results) {
+            assertEquals("/tmp/report-1.pdf", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, renders.get());
+        assertEquals(0, coalescingPdfGenerator.waiters());
+    }
+
+    @Test
+    void differentPayloadsAndProfilesRenderSeparately() {
+        ReportData other = reportData(true);
+        other.setTitle("Other title");
+        GenerationOptions defaults = GenerationOptions.defaults();
+
+        String key = coalescingPdfGenerator.key(reportData(true), defaults);
+        assertEquals(key, coalescingPdfGenerator.key(reportData(false), defaults));
+        assertNotEquals(key, coalescingPdfGenerator.key(other, defaults));
+        assertNotEquals(key, coalescingPdfGenerator.key(reportData(true), GenerationOptions.of(PdfOutputProfile.COMPACT)));
+    }
+
+    @Test
+    void renderIsCancelledOnlyWhenEveryCallerGaveUp() throws Exception {
+        CancellationToken first = CancellationToken.create();
+        CancellationToken second = CancellationToken.create();
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                coalescingPdfGenerator.generatePdf(reportData(true), GenerationOptions.of(PdfOutputProfile.DEFAULT, first)), callers);
+        assertTrue(renderStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+                coalescingPdfGenerator.generatePdf(reportData(true), GenerationOptions.of(PdfOutputProfile.DEFAULT, second)), callers);
+        awaitWaiters(2);
+
+        second.cancel("client disconnected");
+        Exception e = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(GenerationCancelledException.class, e.getCause());
+        assertFalse(renderCancellation.isCancelled());
+
+        first.cancel("deadline exceeded");
+        e = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(GenerationCancelledException.class, e.getCause());
+        assertEquals(1, renders.get());
+    }
+
+    @Test
+    void followerStopsWaitingAtItsDeadline() throws Exception {
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() ->
+                coalescingPdfGenerator.generatePdf(reportData(true)), callers);
+        assertTrue(renderStarted.await(5, TimeUnit.SECONDS));
+
+        GenerationOptions shortDeadline = GenerationOptions.of(PdfOutputProfile.DEFAULT,
+                CancellationToken.withTimeout(Duration.ofMillis(50)));
+        assertThrows(GenerationCancelledException.class,
+                () -> coalescingPdfGenerator.generatePdf(reportData(true), shortDeadline));
+
+        releaseRender.countDown();
+        assertEquals("/tmp/report-1.pdf", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private void awaitWaiters(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescingPdfGenerator.waiters() < expected) {
+            assertTrue(System.nanoTime() < deadline, "callers did not join the shared render");
+            Thread.sleep(5);
+        }
+    }
+
+    private static ReportData reportData(boolean regionFirst) {
+        ReportData reportData = SyntheticReports.of("REP-1", "Dashboard", 3);
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (regionFirst) {
+            data.put("region", "EMEA");
+            data.put("customer", "ACME");
+        } else {
+            data.put("customer", "ACME");
+            data.put("region", "EMEA");
+        }
+        reportData.setData(data);
+        return reportData;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures both engines across item counts to find where Jasper overtakes FreeMarker
+ * on the current hardware; feed the result into {@code pdf.routing.item-threshold}.
+ * <p>
+ * Run with {@code mvn test -Dtest=GeneratorCrossoverBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class GeneratorCrossoverBenchmark {
+
+    private static final int[] ITEM_COUNTS = {10, 50, 100, 250, 500, 1_000, 2_500, 5_000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    @Test
+    void findCrossover() throws Exception {
+        IPdfGenerator freemarker = freemarkerGenerator();
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        IPdfGenerator jasper = new JasperPdfService(new PdfOutputOptimizer(bufferFactory),
+                new ParallelJasperExporter(100, 0, bufferFactory), DataSchemaRegistry.withDefaults(),
+                new FileStorageUtil());
+
+        System.out.printf("%8s %14s %14s%n", "items", "freemarker ms", "jasper ms");
+        Integer crossover = null;
+        for (int itemCount : ITEM_COUNTS) {
+            ReportData reportData = reportData(itemCount);
+            double freemarkerMillis = measure(freemarker, reportData);
+            double jasperMillis = measure(jasper, reportData);
+            System.out.printf("%8d %14.1f %14.1f%n", itemCount, freemarkerMillis, jasperMillis);
+            if (crossover == null && jasperMillis < freemarkerMillis) {
+                crossover = itemCount;
+            }
+        }
+        System.out.println("Suggested pdf.routing.item-threshold=" + (crossover == null ? "none (FreeMarker always faster)" : crossover));
+    }
+
+    private static double measure(IPdfGenerator generator, ReportData reportData) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            Files.deleteIfExists(Path.of(generator.generatePdf(reportData)));
+        }
+        long total = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            String path = generator.generatePdf(reportData);
+            total += System.nanoTime() - start;
+            Files.deleteIfExists(Path.of(path));
+        }
+        return total / (MEASURED_RUNS * 1_000_000.0);
+    }
+
+    private static IPdfGenerator freemarkerGenerator() throws IOException {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+        configuration.setClassLoaderForTemplateLoading(GeneratorCrossoverBenchmark.class.getClassLoader(), "templates");
+        configuration.setDefaultEncoding("UTF-8");
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+
+        Path outputDir = Files.createTempDirectory("crossover-benchmark");
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        FileStorageUtil fileStorageUtil = mock(FileStorageUtil.class);
+        when(fileStorageUtil.savePdf(any(), anyString(), anyString())).thenAnswer(invocation -> {
+            Path file = Files.createTempFile(outputDir, "report", ".pdf");
+            ((PdfBuffer) invocation.getArgument(0)).moveTo(file);
+            return file.toString();
+        });
+        return new PdfGeneratorService(configuration, fileStorageUtil, mock(ReportRepository.class),
+                new PdfOutputOptimizer(bufferFactory), bufferFactory, DataSchemaRegistry.withDefaults());
+    }
+
+    private static ReportData reportData(int itemCount) {
+        return SyntheticReports.of("BENCH-" + itemCount, "Crossover Benchmark", itemCount);
+    }
+}
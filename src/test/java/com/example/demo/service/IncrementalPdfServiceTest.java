@@ -0,0 +1,259 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import com.lowagie.text.Document;
+import com.lowagie.text.Paragraph;
+import com.lowagie.text.pdf.PRStream;
+import com.lowagie.text.pdf.PdfDictionary;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IncrementalPdfServiceTest {
+
+    @Mock
+    private PdfGeneratorService pdfGeneratorService;
+
+    @Mock
+    private FileStorageUtil fileStorageUtil;
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    @TempDir
+    Path storageDir;
+
+    private final PdfBufferFactory pdfBufferFactory = PdfBufferFactory.withDefaults();
+
+    private IncrementalPdfService incrementalPdfService;
+
+    @BeforeEach
+    void setUp() {
+        incrementalPdfService = new IncrementalPdfService(pdfGeneratorService, fileStorageUtil, reportRepository,
+                pdfBufferFactory);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void firstCallRendersEverythingWithStampedFooters() throws Exception {
+        stubFullRender(2);
+
+        String path = incrementalPdfService.generatePdf(ledger(10));
+
+        ArgumentCaptor<Object> model = ArgumentCaptor.forClass(Object.class);
+        verify(pdfGeneratorService).renderPdf(eq("report.ftl"), model.capture(), any(CancellationToken.class));
+        assertEquals(true, ((Map<String, Object>) model.getValue()).get("footerStamped"));
+
+        ArgumentCaptor<Report> saved = ArgumentCaptor.forClass(Report.class);
+        verify(reportRepository).save(saved.capture());
+        assertEquals("LEDGER-1", saved.getValue().getReportId());
+        assertEquals(10, saved.getValue().getLastRenderedRow());
+        assertEquals(IncrementalPdfService.itemsHash(ledger(10).getItems()), saved.getValue().getRenderedItemsHash());
+        assertEquals(2, saved.getValue().getPageCount());
+        assertEquals(path, saved.getValue().getFilePath());
+        assertFalse(path.contains("LEDGER-1"), "the request's report id is not used in the file name");
+
+        PdfReader reader = new PdfReader(path);
+        assertTrue(new PdfTextExtractor(reader).getTextFromPage(2).contains("Page 2 of"));
+        reader.close();
+        assertTrue(pageTotal(Path.of(path)).contains("(2)"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void laterCallsAppendOnlyTheDeltaInPlace() throws Exception {
+        stubFullRender(2);
+        Path stored = Path.of(incrementalPdfService.generatePdf(ledger(10)));
+        Report report = savedReport();
+        byte[] original = Files.readAllBytes(stored);
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.of(report));
+        when(pdfGeneratorService.renderPdf(eq("report-continuation.ftl"), any(), any(CancellationToken.class))).thenReturn(bufferOf(pdfWithPages(1)));
+
+        assertEquals(stored.toString(), incrementalPdfService.generatePdf(ledger(15)));
+
+        ArgumentCaptor<Object> model = ArgumentCaptor.forClass(Object.class);
+        verify(pdfGeneratorService).renderPdf(eq("report-continuation.ftl"), model.capture(), any(CancellationToken.class));
+        assertEquals(5, ((List<ReportItem>) ((Map<String, Object>) model.getValue()).get("items")).size());
+        verify(pdfGeneratorService, times(1)).renderPdf(eq("report.ftl"), any(), any(CancellationToken.class));
+
+        assertEquals(15, report.getLastRenderedRow());
+        assertEquals(3, report.getPageCount());
+        assertEquals(IncrementalPdfService.itemsHash(ledger(15).getItems()), report.getRenderedItemsHash());
+
+        byte[] appended = Files.readAllBytes(stored);
+        assertTrue(appended.length > original.length);
+        assertArrayEquals(original, Arrays.copyOf(appended, original.length), "earlier revision is left untouched");
+        PdfReader reader = new PdfReader(stored.toString());
+        assertEquals(3, reader.getNumberOfPages());
+        assertTrue(new PdfTextExtractor(reader).getTextFromPage(3).contains("Page 3 of"));
+        reader.close();
+        assertTrue(pageTotal(stored).contains("(3)"), "page 1 shows the new total");
+    }
+
+    @Test
+    void changedRenderedItemsRenderTheWholeReportAgain() throws Exception {
+        stubFullRender(2);
+        incrementalPdfService.generatePdf(ledger(10));
+        Report report = savedReport();
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.of(report));
+
+        ReportData changed = ledger(15);
+        changed.getItems().get(3).setValue("corrected");
+        incrementalPdfService.generatePdf(changed);
+
+        verify(pdfGeneratorService, times(2)).renderPdf(eq("report.ftl"), any(), any(CancellationToken.class));
+        verify(pdfGeneratorService, never()).renderPdf(eq("report-continuation.ftl"), any(), any(CancellationToken.class));
+        assertEquals(15, report.getLastRenderedRow());
+        assertEquals(IncrementalPdfService.itemsHash(changed.getItems()), report.getRenderedItemsHash());
+    }
+
+    @Test
+    void noNewItemsLeavesFileUntouched() throws Exception {
+        Path stored = storageDir.resolve("ledger.pdf");
+        Files.write(stored, pdfWithPages(1));
+        Report report = new Report();
+        report.setReportId("LEDGER-1");
+        report.setFilePath(stored.toString());
+        report.setLastRenderedRow(10);
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.of(report));
+
+        assertEquals(stored.toString(), incrementalPdfService.generatePdf(ledger(10)));
+        verifyNoInteractions(pdfGeneratorService);
+        verify(reportRepository, never()).save(any());
+    }
+
+    @Test
+    void cancellationDuringTheFirstRenderIsRecorded() throws Exception {
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.empty());
+        when(pdfGeneratorService.templateModel(eq("report.ftl"), any())).thenAnswer(invocation -> new HashMap<>());
+        CancellationToken cancellation = CancellationToken.create();
+        when(pdfGeneratorService.renderPdf(eq("report.ftl"), any(), same(cancellation))).thenAnswer(invocation -> {
+            cancellation.cancel("client went away");
+            return bufferOf(pdfWithPages(2));
+        });
+
+        assertThrows(GenerationCancelledException.class, () -> incrementalPdfService.generatePdf(ledger(10),
+                GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation)));
+
+        verify(fileStorageUtil, never()).saveAppendablePdf(any(), anyString());
+        Report cancelled = savedReport();
+        assertEquals("LEDGER-1", cancelled.getReportId());
+        assertEquals(ReportStatus.CANCELLED, cancelled.getStatus());
+        assertNull(cancelled.getFilePath());
+    }
+
+    @Test
+    void cancellationDuringAnAppendLeavesTheStoredReportAlone() throws Exception {
+        stubFullRender(2);
+        Path stored = Path.of(incrementalPdfService.generatePdf(ledger(10)));
+        Report report = savedReport();
+        byte[] original = Files.readAllBytes(stored);
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.of(report));
+        CancellationToken cancellation = CancellationToken.create();
+        when(pdfGeneratorService.renderPdf(eq("report-continuation.ftl"), any(), same(cancellation))).thenAnswer(invocation -> {
+            cancellation.cancel("client went away");
+            return bufferOf(pdfWithPages(1));
+        });
+
+        assertThrows(GenerationCancelledException.class, () -> incrementalPdfService.generatePdf(ledger(15),
+                GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation)));
+
+        verify(reportRepository, times(1)).save(any());
+        assertEquals(ReportStatus.COMPLETED, report.getStatus());
+        assertEquals(10, report.getLastRenderedRow());
+        assertArrayEquals(original, Files.readAllBytes(stored));
+    }
+
+    private void stubFullRender(int pages) throws Exception {
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.empty());
+        when(pdfGeneratorService.templateModel(eq("report.ftl"), any())).thenAnswer(invocation -> new HashMap<>());
+        when(pdfGeneratorService.renderPdf(eq("report.ftl"), any(), any(CancellationToken.class))).thenAnswer(invocation -> bufferOf(pdfWithPages(pages)));
+        when(fileStorageUtil.saveAppendablePdf(any(), anyString())).thenAnswer(invocation -> {
+            Path file = storageDir.resolve((String) invocation.getArgument(1));
+            ((PdfBuffer) invocation.getArgument(0)).moveTo(file);
+            return file.toString();
+        });
+    }
+
+    private Report savedReport() {
+        ArgumentCaptor<Report> saved = ArgumentCaptor.forClass(Report.class);
+        verify(reportRepository, atLeastOnce()).save(saved.capture());
+        return saved.getValue();
+    }
+
+    /**
+     * Content of the shared form XObject that draws the page total, as referenced from page 1.
+     */
+    private static String pageTotal(Path pdf) throws Exception {
+        PdfReader reader = new PdfReader(pdf.toString());
+        try {
+            PdfDictionary xObjects = reader.getPageN(1).getAsDict(PdfName.RESOURCES).getAsDict(PdfName.XOBJECT);
+            PRStream form = (PRStream) PdfReader.getPdfObject(xObjects.get(new PdfName("PageTotal")));
+            return new String(PdfReader.getStreamBytes(form), StandardCharsets.US_ASCII);
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static ReportData ledger(int itemCount) {
+        return SyntheticReports.of("LEDGER-1", "Daily Ledger", itemCount);
+    }
+
+    private PdfBuffer bufferOf(byte[] content) throws Exception {
+        PdfBuffer buffer = pdfBufferFactory.create();
+        try (OutputStream out = buffer.outputStream()) {
+            out.write(content);
+        }
+        return buffer;
+    }
+
+    private static byte[] pdfWithPages(int pages) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Document document = new Document();
+        PdfWriter.getInstance(document, out);
+        document.open();
+        for (int i = 0; i < pages; i++) {
+            if (i > 0) {
+                document.newPage();
+            }
+            document.add(new Paragraph("Page body " + i));
+        }
+        document.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import net.sf.jasperreports.engine.JRException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JasperPdfServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+    private final DataSchemaRegistry dataSchemaRegistry = DataSchemaRegistry.withDefaults();
+
+    private JasperPdfService jasperPdfService;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageUtil fileStorageUtil = new FileStorageUtil();
+        ReflectionTestUtils.setField(fileStorageUtil, "tempDirectory", tempDir.toString());
+        jasperPdfService = new JasperPdfService(new PdfOutputOptimizer(bufferFactory),
+                new ParallelJasperExporter(100, 0, bufferFactory), dataSchemaRegistry, fileStorageUtil);
+    }
+
+    @Test
+    void rendersTheDeclaredDataFields() throws Exception {
+        ReportData reportData = SyntheticReports.of("REP-1", "Quarterly", 3);
+        reportData.setData(Map.of("customer", "ACME Corp", "region", "EMEA", "total", 1234.5, "confidential", true));
+
+        Path pdf = Path.of(jasperPdfService.generatePdf(reportData));
+
+        String firstPage = firstPageText(pdf);
+        assertTrue(firstPage.contains("Customer: ACME Corp"), firstPage);
+        assertTrue(firstPage.contains("Region: EMEA"), firstPage);
+        assertTrue(firstPage.contains("Total: 1234.50"), firstPage);
+        assertTrue(firstPage.contains("Confidential"), firstPage);
+    }
+
+    @Test
+    void failedExportsLeaveNoTempFile() throws Exception {
+        ParallelJasperExporter failingExporter = mock(ParallelJasperExporter.class);
+        when(failingExporter.fillAndExport(any(), any(), any(), any(), any(), any(), any()))
+                .thenThrow(new JRException("export failed"));
+        FileStorageUtil fileStorageUtil = new FileStorageUtil();
+        ReflectionTestUtils.setField(fileStorageUtil, "tempDirectory", tempDir.toString());
+        JasperPdfService failing = new JasperPdfService(new PdfOutputOptimizer(bufferFactory), failingExporter,
+                dataSchemaRegistry, fileStorageUtil);
+        ReflectionTestUtils.setField(failing, "parallelMinItems", 0);
+
+        assertThrows(PDFGenerationException.class, () -> failing.generatePdf(SyntheticReports.of("REP-1", "Quarterly", 3)));
+        verify(failingExporter).fillAndExport(any(), any(), any(), any(), any(), any(), any());
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void compiledReportIsCachedBySchemaVersion() {
+        assertEquals("sample-report.jrxml@1", dataSchemaRegistry.cacheKey("sample-report.jrxml"));
+    }
+
+    private static String firstPageText(Path pdf) throws Exception {
+        PdfReader reader = new PdfReader(Files.readAllBytes(pdf));
+        try {
+            return new PdfTextExtractor(reader).getTextFromPage(1);
+        } finally {
+            reader.close();
+        }
+    }
+}
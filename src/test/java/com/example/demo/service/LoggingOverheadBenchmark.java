@@ -0,0 +1,117 @@
+package com.example.demo.service;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import com.example.demo.util.ReportDataLogSummary;
+import com.example.demo.util.SyntheticReports;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.OutputStream;
+
+/**
+ * Measures the logging cost per report of the statements on the generation path, before and
+ * after the switch to capped summaries, guarded trace loops and async appenders.
+ * Events go to a discarding stream so only formatting and appender overhead is measured.
+ * <p>
+ * Run with {@code mvn test -Dtest=LoggingOverheadBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoggingOverheadBenchmark {
+
+    private static final int ITEM_COUNT = 5_000;
+    private static final int WARMUP_REPORTS = 200;
+    private static final int MEASURED_REPORTS = 1_000;
+
+    @Test
+    void compareLoggingCost() {
+        ReportData reportData = reportData();
+        LoggerContext context = new LoggerContext();
+
+        Logger before = logger(context, "before", Level.DEBUG,
+                syncAppender(context, "%d %p %C{1} [%t] %m%n"));
+        Logger sampledOut = logger(context, "sampledOut", Level.INFO,
+                asyncAppender(context, syncAppender(context, "%d %p %logger [%t] %m%n")));
+        Logger sampledIn = logger(context, "sampledIn", Level.DEBUG,
+                asyncAppender(context, syncAppender(context, "%d %p %logger [%t] %m%n")));
+
+        System.out.printf("%-40s %12s%n", "scenario", "us/report");
+        System.out.printf("%-40s %12.1f%n", "before: full payload, sync, caller data",
+                measure(() -> logBefore(before, reportData)));
+        System.out.printf("%-40s %12.1f%n", "after: request not sampled",
+                measure(() -> logAfter(sampledOut, reportData)));
+        System.out.printf("%-40s %12.1f%n", "after: sampled request, async",
+                measure(() -> logAfter(sampledIn, reportData)));
+        context.stop();
+    }
+
+    private static void logBefore(Logger log, ReportData reportData) {
+        log.debug("Template data: {}", reportData);
+        for (ReportItem item : reportData.getItems()) {
+            log.trace("Added item to data list: name={}, description={}, value={}",
+                    item.getName(), item.getDescription(), item.getValue());
+        }
+    }
+
+    private static void logAfter(Logger log, ReportData reportData) {
+        log.debug("Template data: {}", ReportDataLogSummary.of(reportData));
+        if (log.isTraceEnabled()) {
+            log.trace("Added {} items to data list: {}", reportData.getItems().size(), ReportDataLogSummary.of(reportData));
+        }
+    }
+
+    private static double measure(Runnable report) {
+        for (int i = 0; i < WARMUP_REPORTS; i++) {
+            report.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_REPORTS; i++) {
+            report.run();
+        }
+        return (System.nanoTime() - start) / (MEASURED_REPORTS * 1_000.0);
+    }
+
+    private static Logger logger(LoggerContext context, String name, Level level, Appender<ILoggingEvent> appender) {
+        Logger logger = context.getLogger("com.example.demo.benchmark." + name);
+        logger.setLevel(level);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private static Appender<ILoggingEvent> syncAppender(LoggerContext context, String pattern) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+        return appender;
+    }
+
+    private static Appender<ILoggingEvent> asyncAppender(LoggerContext context, Appender<ILoggingEvent> delegate) {
+        AsyncAppender appender = new AsyncAppender();
+        appender.setContext(context);
+        appender.setQueueSize(8192);
+        appender.setNeverBlock(true);
+        appender.addAppender(delegate);
+        appender.start();
+        return appender;
+    }
+
+    private static ReportData reportData() {
+        return SyntheticReports.of("BENCH-LOG", "Logging Overhead Benchmark", ITEM_COUNT);
+    }
+}
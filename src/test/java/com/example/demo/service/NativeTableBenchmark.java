@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Compares the native table engine with the FreeMarker and Jasper engines from 1k to 1M rows:
+ * wall time, peak heap during the render and output size.
+ * <p>
+ * The HTML engine is skipped above {@code -Dbenchmark.freemarker.max-rows} (default 10k) and Jasper
+ * above {@code -Dbenchmark.jasper.max-rows} (default 100k), where they take minutes or run out of heap.
+ * Run with {@code mvn test -Dtest=NativeTableBenchmark -Dbenchmark=true}, ideally with a fixed {@code -Xmx}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class NativeTableBenchmark {
+
+    private static final int[] ROW_COUNTS = {1_000, 10_000, 100_000, 1_000_000};
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 3;
+
+    @Test
+    void compareEngines() throws Exception {
+        Path outputDir = Files.createTempDirectory("native-table-benchmark");
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        FileStorageUtil fileStorageUtil = storingIn(outputDir);
+        PdfOutputOptimizer optimizer = new PdfOutputOptimizer(bufferFactory);
+        DataSchemaRegistry schemas = DataSchemaRegistry.withDefaults();
+
+        IPdfGenerator nativeTable = new NativeTablePdfService(fileStorageUtil, mock(ReportRepository.class), optimizer, bufferFactory);
+        IPdfGenerator freemarker = new PdfGeneratorService(freemarkerConfiguration(), fileStorageUtil,
+                mock(ReportRepository.class), optimizer, bufferFactory, schemas);
+        IPdfGenerator jasper = new JasperPdfService(optimizer, new ParallelJasperExporter(100, 0, bufferFactory), schemas,
+                new FileStorageUtil());
+        int freemarkerMaxRows = Integer.getInteger("benchmark.freemarker.max-rows", 10_000);
+        int jasperMaxRows = Integer.getInteger("benchmark.jasper.max-rows", 100_000);
+
+        System.out.printf("%9s %-10s %12s %14s %12s%n", "rows", "engine", "ms", "peak heap MB", "size KB");
+        for (int rowCount : ROW_COUNTS) {
+            ReportData reportData = reportData(rowCount);
+            measure("native", nativeTable, reportData);
+            if (rowCount <= freemarkerMaxRows) {
+                measure("freemarker", freemarker, reportData);
+            }
+            if (rowCount <= jasperMaxRows) {
+                measure("jasper", jasper, reportData);
+            }
+        }
+    }
+
+    private static void measure(String engine, IPdfGenerator generator, ReportData reportData) throws IOException {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            Files.deleteIfExists(Path.of(generator.generatePdf(reportData)));
+        }
+        long totalNanos = 0;
+        long peakHeap = 0;
+        long size = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            System.gc();
+            resetPeakHeap();
+            long start = System.nanoTime();
+            Path path = Path.of(generator.generatePdf(reportData));
+            totalNanos += System.nanoTime() - start;
+            peakHeap = Math.max(peakHeap, peakHeap());
+            size = Files.size(path);
+            Files.deleteIfExists(path);
+        }
+        System.out.printf("%9d %-10s %12.1f %14.1f %12d%n", reportData.getItems().size(), engine,
+                totalNanos / (MEASURED_RUNS * 1_000_000.0), peakHeap / (1024.0 * 1024.0), size / 1024);
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the pools' peaks, an upper bound of the real peak that includes the payload itself.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static FileStorageUtil storingIn(Path outputDir) throws IOException {
+        FileStorageUtil fileStorageUtil = mock(FileStorageUtil.class);
+        when(fileStorageUtil.savePdf(any(), anyString(), anyString())).thenAnswer(invocation -> {
+            Path file = Files.createTempFile(outputDir, "report", ".pdf");
+            ((PdfBuffer) invocation.getArgument(0)).moveTo(file);
+            return file.toString();
+        });
+        return fileStorageUtil;
+    }
+
+    private static Configuration freemarkerConfiguration() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+        configuration.setClassLoaderForTemplateLoading(NativeTableBenchmark.class.getClassLoader(), "templates");
+        configuration.setDefaultEncoding("UTF-8");
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        return configuration;
+    }
+
+    private static ReportData reportData(int rowCount) {
+        return SyntheticReports.of("BENCH-" + rowCount, "Native Table Benchmark", rowCount);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NativeTablePdfServiceTest {
+
+    @Mock
+    private FileStorageUtil fileStorageUtil;
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    private NativeTablePdfService nativeTablePdfService;
+
+    @BeforeEach
+    void setUp() {
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        nativeTablePdfService = new NativeTablePdfService(fileStorageUtil, reportRepository,
+                new PdfOutputOptimizer(bufferFactory), bufferFactory);
+    }
+
+    @Test
+    void drawsEveryRowWithTheHeaderOnEachPage() throws Exception {
+        ReportData reportData = reportData(2_000);
+
+        try (PdfBuffer pdf = nativeTablePdfService.renderPdf(reportData, PdfOutputProfile.DEFAULT, CancellationToken.NONE);
+             InputStream in = pdf.openInputStream()) {
+            PdfReader reader = new PdfReader(in);
+            int pages = reader.getNumberOfPages();
+            assertTrue(pages > 1, "expected the table to span pages");
+
+            PdfTextExtractor extractor = new PdfTextExtractor(reader);
+            assertTrue(extractor.getTextFromPage(1).contains("Native Report"));
+            String lastPage = extractor.getTextFromPage(pages);
+            assertTrue(lastPage.contains("Description"), "header row is repeated");
+            assertTrue(lastPage.contains("Item 1999"));
+            assertTrue(lastPage.contains("page " + pages));
+            reader.close();
+        }
+    }
+
+    @Test
+    void savesThePdfAndRecordsTheReport() throws Exception {
+        when(fileStorageUtil.savePdf(any(), any(), any())).thenReturn("/tmp/native-table.pdf");
+
+        assertEquals("/tmp/native-table.pdf", nativeTablePdfService.generatePdf(reportData(10)));
+
+        ArgumentCaptor<Report> report = ArgumentCaptor.forClass(Report.class);
+        verify(reportRepository).save(report.capture());
+        assertEquals(ReportStatus.COMPLETED, report.getValue().getStatus());
+        assertEquals("Native Report", report.getValue().getTitle());
+    }
+
+    @Test
+    void cancellationStopsBetweenBatches() throws Exception {
+        CancellationToken cancellation = CancellationToken.create();
+        cancellation.cancel("client disconnected");
+
+        assertThrows(GenerationCancelledException.class, () -> nativeTablePdfService.generatePdf(
+                reportData(1_000), GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation)));
+
+        ArgumentCaptor<Report> report = ArgumentCaptor.forClass(Report.class);
+        verify(reportRepository).save(report.capture());
+        assertEquals(ReportStatus.CANCELLED, report.getValue().getStatus());
+        verify(fileStorageUtil, never()).savePdf(any(), any(), any());
+    }
+
+    private static ReportData reportData(int itemCount) {
+        return SyntheticReports.of("NATIVE-1", "Native Report", itemCount);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import com.example.demo.util.PdfBufferFactory;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelJasperExporterTest {
+
+    private static final String TEMPLATE_PATH = "reports/sample-report.jrxml";
+
+    private static final String PAGE_FOOTER_END = "</band>\n    </pageFooter>";
+
+    // a "Page n of m" footer, whose total is only known once the fill ends
+    private static final String PAGE_TOTAL_FIELD = """
+            <textField evaluationTime="Report">
+                <reportElement x="0" y="30" width="555" height="20"/>
+                <textFieldExpression><![CDATA["of " + $V{PAGE_NUMBER} + " pages"]]></textFieldExpression>
+            </textField>
+            """;
+
+    private final ParallelJasperExporter exporter = new ParallelJasperExporter(1, 2, PdfBufferFactory.withDefaults());
+
+    @AfterEach
+    void tearDown() {
+        exporter.shutdown();
+    }
+
+    @Test
+    void reportsWithoutDelayedElementsAreExportedAlongsideTheFill() throws Exception {
+        assertFalse(ParallelJasperExporter.updatesEarlierPages(compile(template())));
+    }
+
+    @Test
+    void pageTotalsAreDetectedBeforeTheFillAndExportedInOnePass() throws Exception {
+        String template = template();
+        assertTrue(template.contains(PAGE_FOOTER_END));
+        JasperReport jasperReport = compile(template.replace(PAGE_FOOTER_END, PAGE_TOTAL_FIELD + PAGE_FOOTER_END));
+        assertTrue(ParallelJasperExporter.updatesEarlierPages(jasperReport));
+
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        exporter.fillAndExport(jasperReport, parameters(), new JRMapCollectionDataSource(rows(100)),
+                new SimplePdfExporterConfiguration(), PdfOutputProfile.DEFAULT, pdf);
+
+        PdfReader reader = new PdfReader(pdf.toByteArray());
+        try {
+            int pages = reader.getNumberOfPages();
+            assertTrue(pages > 1);
+            assertTrue(new PdfTextExtractor(reader).getTextFromPage(1).contains("of " + pages + " pages"));
+        } finally {
+            reader.close();
+        }
+    }
+
+    private String template() throws Exception {
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream(TEMPLATE_PATH)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static JasperReport compile(String jrxml) throws Exception {
+        return JasperCompileManager.compileReport(new ByteArrayInputStream(jrxml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static Map<String, Object> parameters() {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("REPORT_TITLE", "Page Totals");
+        parameters.put("REPORT_ID", "REP-1");
+        parameters.put("GENERATED_DATE", new Date());
+        return parameters;
+    }
+
+    private static List<Map<String, ?>> rows(int count) {
+        List<Map<String, ?>> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", "Item " + i);
+            row.put("description", "Description for item " + i);
+            row.put("value", String.valueOf(i));
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -4,9 +4,16 @@ import com.example.demo.config.TestFreemarkerConfig;
 import com.example.demo.dto.ReportData;
 import com.example.demo.entity.Report;
 import com.example.demo.entity.ReportStatus;
+import com.example.demo.exception.GenerationCancelledException;
 import com.example.demo.exception.PDFGenerationException;
 import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.schema.DataSchemaRegistry;
 import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.parser.PdfTextExtractor;
 import freemarker.template.Configuration;
 import freemarker.template.Template;
 import freemarker.template.TemplateException;
@@ -15,11 +22,14 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.test.context.ContextConfiguration;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -43,6 +53,12 @@ class PdfGeneratorServiceTest {
     @Mock
     private Template template;
 
+    @Spy
+    private PdfBufferFactory pdfBufferFactory = PdfBufferFactory.withDefaults();
+
+    @Spy
+    private DataSchemaRegistry dataSchemaRegistry = DataSchemaRegistry.withDefaults();
+
     @InjectMocks
     private PdfGeneratorService pdfGeneratorService;
 
@@ -70,7 +86,7 @@ class PdfGeneratorServiceTest {
             return null;
         }).when(template).process(any(), any(StringWriter.class));
         
-        when(fileStorageUtil.savePdf(any(), anyString())).thenReturn("/path/to/saved/file.pdf");
+        when(fileStorageUtil.savePdf(any(), anyString(), anyString())).thenReturn("/path/to/saved/file.pdf");
 
         // Act
         String result = pdfGeneratorService.generatePdf(reportData);
@@ -79,10 +95,38 @@ class PdfGeneratorServiceTest {
         assertNotNull(result);
         assertTrue(result.endsWith(".pdf"));
         verify(reportRepository).save(any(Report.class));
-        verify(fileStorageUtil).savePdf(any(), anyString());
+        // stored copies are shared by report inputs, not by the PDF bytes, which carry the generation time
+        verify(fileStorageUtil).savePdf(any(), anyString(),
+                eq(ReportKey.of(TEMPLATE_NAME, PdfOutputProfile.DEFAULT, reportData)));
         verify(freemarkerConfig).getTemplate(eq(TEMPLATE_NAME));
     }
 
+    @Test
+    void renderPdf_RendersTheDeclaredDataFields() throws Exception {
+        // Arrange
+        Template reportTemplate = new TestFreemarkerConfig().customFreemarkerConfig().getTemplate(TEMPLATE_NAME);
+        doAnswer(invocation -> {
+            reportTemplate.process(invocation.getArgument(0), invocation.<StringWriter>getArgument(1));
+            return null;
+        }).when(template).process(any(), any(StringWriter.class));
+        ReportData withData = SyntheticReports.of("REP-1", "Quarterly", 2);
+        withData.setData(Map.of("customer", "ACME Corp", "region", "EMEA", "total", 1234.5, "confidential", true));
+
+        // Act
+        String text;
+        try (PdfBuffer pdf = pdfGeneratorService.renderPdf(TEMPLATE_NAME, withData)) {
+            PdfReader reader = PdfOutputOptimizer.openReader(pdf);
+            text = new PdfTextExtractor(reader).getTextFromPage(1);
+            reader.close();
+        }
+
+        // Assert
+        assertTrue(text.contains("ACME Corp"), text);
+        assertTrue(text.contains("EMEA"), text);
+        assertTrue(text.contains("1234.50"), text);
+        assertTrue(text.contains("Confidential"), text);
+    }
+
     @Test
     void generatePdfForBasicReport_TemplateException() throws Exception {
         // Arrange
@@ -106,7 +150,7 @@ class PdfGeneratorServiceTest {
             return null;
         }).when(template).process(any(), any(StringWriter.class));
         
-        when(fileStorageUtil.savePdf(any(), anyString())).thenThrow(new IOException("Storage error"));
+        when(fileStorageUtil.savePdf(any(), anyString(), anyString())).thenThrow(new IOException("Storage error"));
 
         // Act & Assert
         assertThrows(PDFGenerationException.class, () -> 
@@ -126,7 +170,7 @@ class PdfGeneratorServiceTest {
             return null;
         }).when(template).process(any(), any(StringWriter.class));
         
-        when(fileStorageUtil.savePdf(any(), anyString())).thenReturn("/path/to/saved/file.pdf");
+        when(fileStorageUtil.savePdf(any(), anyString(), anyString())).thenReturn("/path/to/saved/file.pdf");
 
         // Act
         pdfGeneratorService.generatePdf(reportData);
@@ -140,4 +184,69 @@ class PdfGeneratorServiceTest {
         }));
         verify(freemarkerConfig).getTemplate(eq(TEMPLATE_NAME));
     }
-} 
\ No newline at end of file
+
+    @Test
+    void generatePdfForBasicReport_CancelledDuringMerge() throws Exception {
+        // Arrange
+        CancellationToken cancellation = CancellationToken.create();
+        doAnswer(invocation -> {
+            StringWriter writer = invocation.getArgument(1);
+            writer.write("<html><body><h1>" + reportData.getTitle() + "</h1></body></html>");
+            cancellation.cancel("client disconnected");
+            return null;
+        }).when(template).process(any(), any(StringWriter.class));
+
+        // Act & Assert
+        assertThrows(GenerationCancelledException.class, () ->
+            pdfGeneratorService.generatePdf(reportData, GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation))
+        );
+        verify(fileStorageUtil, never()).savePdf(any(), anyString(), anyString());
+        verify(reportRepository).save(argThat(report -> report.getStatus() == ReportStatus.CANCELLED));
+    }
+
+    @Test
+    void generatePdfForBasicReport_CancelledRecordsTheRequestsReportId() throws Exception {
+        // Arrange
+        reportData.setReportId("REP-7");
+        Report earlier = new Report();
+        earlier.setReportId("REP-7");
+        earlier.setStatus(ReportStatus.CANCELLED);
+        when(reportRepository.findByReportId("REP-7")).thenReturn(Optional.of(earlier));
+        CancellationToken cancellation = cancelDuringMerge();
+
+        // Act & Assert
+        assertThrows(GenerationCancelledException.class, () ->
+            pdfGeneratorService.generatePdf(reportData, GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation))
+        );
+        verify(reportRepository).save(same(earlier));
+        assertEquals("Test Report", earlier.getTitle());
+    }
+
+    @Test
+    void generatePdfForBasicReport_CancelledKeepsAStoredReportWithTheSameId() throws Exception {
+        // Arrange
+        reportData.setReportId("LEDGER-1");
+        Report stored = new Report();
+        stored.setReportId("LEDGER-1");
+        stored.setStatus(ReportStatus.COMPLETED);
+        stored.setFilePath("/tmp/ledger.pdf");
+        when(reportRepository.findByReportId("LEDGER-1")).thenReturn(Optional.of(stored));
+        CancellationToken cancellation = cancelDuringMerge();
+
+        // Act & Assert
+        assertThrows(GenerationCancelledException.class, () ->
+            pdfGeneratorService.generatePdf(reportData, GenerationOptions.of(PdfOutputProfile.DEFAULT, cancellation))
+        );
+        verify(reportRepository, never()).save(any());
+        assertEquals(ReportStatus.COMPLETED, stored.getStatus());
+    }
+
+    private CancellationToken cancelDuringMerge() throws Exception {
+        CancellationToken cancellation = CancellationToken.create();
+        doAnswer(invocation -> {
+            cancellation.cancel("client disconnected");
+            return null;
+        }).when(template).process(any(), any(StringWriter.class));
+        return cancellation;
+    }
+}
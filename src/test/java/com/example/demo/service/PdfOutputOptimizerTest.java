@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.lowagie.text.Document;
+import com.lowagie.text.Image;
+import com.lowagie.text.pdf.PRStream;
+import com.lowagie.text.pdf.PdfName;
+import com.lowagie.text.pdf.PdfObject;
+import com.lowagie.text.pdf.PdfReader;
+import com.lowagie.text.pdf.PdfWriter;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfOutputOptimizerTest {
+
+    private final PdfBufferFactory pdfBufferFactory = PdfBufferFactory.withDefaults();
+
+    private final PdfOutputOptimizer optimizer = new PdfOutputOptimizer(pdfBufferFactory);
+
+    @Test
+    void downsamplesImagesDrawnAboveTheProfileResolution() throws Exception {
+        // 800 px across one inch is 800 dpi
+        try (PdfBuffer optimized = optimizer.optimize(pdfWithImage(800, 72), PdfOutputProfile.SMALLEST)) {
+            assertEquals(150, imageWidth(optimized));
+        }
+    }
+
+    @Test
+    void keepsImagesThatAreLargeButDrawnLarge() throws Exception {
+        // 1000 px across 500 pt is 144 dpi
+        try (PdfBuffer optimized = optimizer.optimize(pdfWithImage(1000, 500), PdfOutputProfile.SMALLEST)) {
+            assertEquals(1000, imageWidth(optimized));
+        }
+    }
+
+    private PdfBuffer pdfWithImage(int pixels, float points) throws Exception {
+        ByteArrayOutputStream jpeg = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(pixels, pixels, BufferedImage.TYPE_INT_RGB), "jpg", jpeg);
+        Image image = Image.getInstance(jpeg.toByteArray());
+        image.scaleAbsolute(points, points);
+
+        PdfBuffer buffer = pdfBufferFactory.create();
+        try (OutputStream out = buffer.outputStream()) {
+            Document document = new Document();
+            PdfWriter.getInstance(document, out);
+            document.open();
+            document.add(image);
+            document.close();
+        }
+        return buffer;
+    }
+
+    private static int imageWidth(PdfBuffer pdf) throws Exception {
+        try (InputStream in = pdf.openInputStream()) {
+            PdfReader reader = new PdfReader(in);
+            try {
+                for (int i = 0; i < reader.getXrefSize(); i++) {
+                    PdfObject object = reader.getPdfObject(i);
+                    if (object instanceof PRStream stream && PdfName.IMAGE.equals(stream.get(PdfName.SUBTYPE))) {
+                        return stream.getAsNumber(PdfName.WIDTH).intValue();
+                    }
+                }
+                throw new AssertionError("no image in the PDF");
+            } finally {
+                reader.close();
+            }
+        }
+    }
+}
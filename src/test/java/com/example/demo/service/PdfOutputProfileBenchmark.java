@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBuffer;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import freemarker.template.Configuration;
+import freemarker.template.TemplateExceptionHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Reports output size against CPU time for every {@link PdfOutputProfile} on both engines.
+ * <p>
+ * Run with {@code mvn test -Dtest=PdfOutputProfileBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PdfOutputProfileBenchmark {
+
+    private static final int ITEM_COUNT = 2_000;
+    private static final int WARMUP_RUNS = 2;
+    private static final int MEASURED_RUNS = 5;
+
+    @Test
+    void compareProfiles() throws Exception {
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        PdfOutputOptimizer optimizer = new PdfOutputOptimizer(bufferFactory);
+        DataSchemaRegistry schemas = DataSchemaRegistry.withDefaults();
+        PdfGeneratorService freemarker = new PdfGeneratorService(freemarkerConfiguration(),
+                mock(FileStorageUtil.class), mock(ReportRepository.class), optimizer, bufferFactory, schemas);
+        JasperPdfService jasper = new JasperPdfService(optimizer, new ParallelJasperExporter(100, 0, bufferFactory), schemas,
+                new FileStorageUtil());
+        ReportData reportData = reportData();
+
+        System.out.printf("%-10s %-10s %12s %10s%n", "engine", "profile", "bytes", "ms");
+        for (PdfOutputProfile profile : PdfOutputProfile.values()) {
+            long[] result = measure(() -> {
+                try (PdfBuffer pdf = freemarker.renderPdf("report.ftl", reportData, profile)) {
+                    return pdf.size();
+                }
+            });
+            System.out.printf("%-10s %-10s %12d %10.1f%n", "freemarker", profile, result[0], result[1] / 1_000_000.0);
+        }
+        for (PdfOutputProfile profile : PdfOutputProfile.values()) {
+            long[] result = measure(() -> {
+                Path path = Path.of(jasper.generatePdf(reportData, GenerationOptions.of(profile)));
+                long size = Files.size(path);
+                Files.delete(path);
+                return size;
+            });
+            System.out.printf("%-10s %-10s %12d %10.1f%n", "jasper", profile, result[0], result[1] / 1_000_000.0);
+        }
+    }
+
+    /**
+     * @return the output size of the last run and the mean elapsed nanos
+     */
+    private static long[] measure(SizedRun run) throws Exception {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            run.run();
+        }
+        long size = 0;
+        long total = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            size = run.run();
+            total += System.nanoTime() - start;
+        }
+        return new long[]{size, total / MEASURED_RUNS};
+    }
+
+    private interface SizedRun {
+        long run() throws Exception;
+    }
+
+    private static Configuration freemarkerConfiguration() {
+        Configuration configuration = new Configuration(Configuration.VERSION_2_3_32);
+        configuration.setClassLoaderForTemplateLoading(PdfOutputProfileBenchmark.class.getClassLoader(), "templates");
+        configuration.setDefaultEncoding("UTF-8");
+        configuration.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);
+        return configuration;
+    }
+
+    private static ReportData reportData() {
+        return SyntheticReports.of("BENCH-PROFILE", "Output Profile Benchmark", ITEM_COUNT);
+    }
+}
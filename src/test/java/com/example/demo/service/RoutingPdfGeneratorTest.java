@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.PDFGenerationException;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.util.SyntheticReports;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RoutingPdfGeneratorTest {
+
+    @Mock
+    private IPdfGenerator freemarkerGenerator;
+
+    @Mock
+    private IPdfGenerator jasperGenerator;
+
+    private EngineLatencyTracker latencyTracker;
+
+    private RoutingPdfGenerator routingPdfGenerator;
+
+    @BeforeEach
+    void setUp() {
+        latencyTracker = new EngineLatencyTracker();
+        routingPdfGenerator = new RoutingPdfGenerator(freemarkerGenerator, jasperGenerator, latencyTracker);
+        routingPdfGenerator.random = () -> 1.0;
+    }
+
+    @Test
+    void smallReportsGoToFreemarker() {
+        assertEquals(PdfEngine.FREEMARKER, routingPdfGenerator.selectEngine(reportData(10)));
+    }
+
+    @Test
+    void largeReportsGoToJasper() {
+        assertEquals(PdfEngine.JASPER, routingPdfGenerator.selectEngine(reportData(5_000)));
+    }
+
+    @Test
+    void largeReportsWithDataGoToJasper() {
+        ReportData reportData = reportData(5_000);
+        reportData.setData(Map.of("customer", Map.of("name", "ACME")));
+        when(jasperGenerator.generatePdf(any(), any())).thenReturn("/tmp/report.pdf");
+
+        assertEquals("/tmp/report.pdf", routingPdfGenerator.generatePdf(reportData));
+        verify(jasperGenerator).generatePdf(same(reportData), any());
+        verifyNoInteractions(freemarkerGenerator);
+    }
+
+    @Test
+    void measuredLatencyOverridesThreshold() {
+        for (int i = 0; i < 5; i++) {
+            latencyTracker.record(PdfEngine.FREEMARKER, 5_000, 10_000_000L);
+            latencyTracker.record(PdfEngine.JASPER, 5_000, 90_000_000L);
+        }
+
+        assertEquals(PdfEngine.FREEMARKER, routingPdfGenerator.selectEngine(reportData(5_000)));
+    }
+
+    @Test
+    void exploresTheOtherEngineUntilItHasSamples() {
+        routingPdfGenerator.random = () -> 0.0;
+        when(freemarkerGenerator.generatePdf(any(), any())).thenReturn("/tmp/report.pdf");
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(PdfEngine.FREEMARKER, routingPdfGenerator.selectEngine(reportData(1_000)));
+            routingPdfGenerator.generatePdf(reportData(1_000));
+        }
+        assertEquals(PdfEngine.JASPER, routingPdfGenerator.selectEngine(reportData(1_000)),
+                "FreeMarker has enough samples, exploration stops");
+
+        for (int i = 0; i < 5; i++) {
+            latencyTracker.record(PdfEngine.JASPER, 1_000, 90_000_000L);
+        }
+
+        assertEquals(PdfEngine.FREEMARKER, routingPdfGenerator.selectEngine(reportData(1_000)),
+                "both engines measured, the latency rule decides");
+    }
+
+    @Test
+    void doesNotExploreWithVeryLargeReports() {
+        routingPdfGenerator.random = () -> 0.0;
+
+        assertEquals(PdfEngine.JASPER, routingPdfGenerator.selectEngine(reportData(50_000)));
+    }
+
+    @Test
+    void fallsBackToOtherEngineOnFailure() {
+        when(freemarkerGenerator.generatePdf(any(), any())).thenThrow(new PDFGenerationException("boom"));
+        when(jasperGenerator.generatePdf(any(), any())).thenReturn("/tmp/report.pdf");
+
+        assertEquals("/tmp/report.pdf", routingPdfGenerator.generatePdf(reportData(10)));
+        verify(jasperGenerator).generatePdf(any(), any());
+    }
+
+    @Test
+    void doesNotFallBackWhenThePayloadIsRejected() {
+        ReportData reportData = reportData(10);
+        reportData.setData(Map.of("customer", Map.of("name", 42)));
+        when(freemarkerGenerator.generatePdf(any(), any()))
+                .thenThrow(new SchemaViolationException("data.customer.name must be a string"));
+
+        assertThrows(SchemaViolationException.class, () -> routingPdfGenerator.generatePdf(reportData));
+        verifyNoInteractions(jasperGenerator);
+    }
+
+    private static ReportData reportData(int itemCount) {
+        return SyntheticReports.of("REP-1", "Routing Report", itemCount);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import com.example.demo.config.StorageLifecycleProperties;
+import com.example.demo.entity.Report;
+import com.example.demo.entity.ReportStatus;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.cluster.ClusterMembership;
+import com.example.demo.util.FileStorageUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StorageLifecycleServiceTest {
+
+    @Mock
+    private FileStorageUtil fileStorageUtil;
+
+    @Mock
+    private ReportRepository reportRepository;
+
+    @TempDir
+    Path storageDir;
+
+    private StorageLifecycleProperties properties;
+
+    private StorageLifecycleService lifecycleService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new StorageLifecycleProperties();
+        properties.setPause(Duration.ZERO);
+        lifecycleService = new StorageLifecycleService(fileStorageUtil, reportRepository, properties,
+                ClusterMembership.standalone());
+    }
+
+    @Test
+    void removesOnlyOldUnreferencedFiles() throws Exception {
+        when(fileStorageUtil.getStorageDir()).thenReturn(storageDir);
+        Path referenced = oldFile("referenced.pdf");
+        Path orphan = oldFile("orphan.pdf");
+        Path staging = oldFile("ledger.pdf.123.part");
+        Path fresh = Files.writeString(storageDir.resolve("fresh.pdf"), "pdf");
+        when(reportRepository.existsByFilePath(referenced.toString())).thenReturn(true);
+        when(reportRepository.existsByFilePath(orphan.toString())).thenReturn(false);
+
+        int deleted = lifecycleService.removeOrphanedFiles(throttle(100));
+
+        assertEquals(2, deleted);
+        assertTrue(Files.exists(referenced));
+        assertTrue(Files.exists(fresh));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(staging));
+    }
+
+    @Test
+    void deletesExpiredReportsWithTheirFiles() throws Exception {
+        properties.getRetention().put(ReportStatus.FAILED, Duration.ofDays(7));
+        Path file = oldFile("failed.pdf");
+        Report report = new Report();
+        report.setReportId("REP-1");
+        report.setFilePath(file.toString());
+        when(reportRepository.findTop100ByStatusAndUpdatedAtBeforeOrderByUpdatedAtAsc(eq(ReportStatus.FAILED), any()))
+                .thenReturn(List.of(report))
+                .thenReturn(List.of());
+
+        assertEquals(1, lifecycleService.enforceRetention(throttle(100)));
+        verify(reportRepository).delete(report);
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void stopsAtTheDeletionLimit() throws Exception {
+        when(fileStorageUtil.getStorageDir()).thenReturn(storageDir);
+        for (int i = 0; i < 5; i++) {
+            oldFile("orphan-" + i + ".pdf");
+        }
+
+        assertEquals(3, lifecycleService.removeOrphanedFiles(throttle(3)));
+    }
+
+    @Test
+    void sweepsOnlyItsOwnTempDirectory() throws Exception {
+        Path tempDir = Files.createDirectory(storageDir.resolve("temp"));
+        when(fileStorageUtil.getTempDir()).thenReturn(tempDir);
+        Path stale = oldFile("temp/report123.pdf");
+        Path fresh = Files.writeString(tempDir.resolve("report456.pdf"), "pdf");
+        Path elsewhere = oldFile("report789.pdf");
+
+        assertEquals(1, lifecycleService.removeStaleTempFiles(throttle(100)));
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.exists(fresh));
+        assertTrue(Files.exists(elsewhere));
+    }
+
+    private StorageLifecycleService.Throttle throttle(int limit) {
+        return new StorageLifecycleService.Throttle(limit, 10, Duration.ZERO);
+    }
+
+    private Path oldFile(String name) throws Exception {
+        Path file = Files.writeString(storageDir.resolve(name), "pdf");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        return file;
+    }
+}
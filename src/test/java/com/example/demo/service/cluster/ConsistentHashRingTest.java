@@ -0,0 +1,86 @@
+package com.example.demo.service.cluster;
+
+import com.example.demo.config.ClusterProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final List<String> NODES = List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082");
+
+    @Test
+    void spreadsKeysOverAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(NODES, 64);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 3_000; i++) {
+            counts.merge(ring.nodeFor("template-" + i), 1, Integer::sum);
+        }
+
+        assertEquals(NODES.size(), counts.size());
+        counts.values().forEach(count -> assertTrue(count > 500, "uneven spread: " + counts));
+    }
+
+    @Test
+    void removingANodeOnlyMovesItsKeys() {
+        ConsistentHashRing full = new ConsistentHashRing(NODES, 64);
+        ConsistentHashRing reduced = new ConsistentHashRing(NODES.subList(0, 2), 64);
+
+        for (int i = 0; i < 1_000; i++) {
+            String key = "template-" + i;
+            String before = full.nodeFor(key);
+            if (!before.equals(NODES.get(2))) {
+                assertEquals(before, reduced.nodeFor(key), key);
+            }
+        }
+    }
+
+    @Test
+    void everyNodeAgreesOnTheOwner() {
+        List<ClusterMembership> members = List.of(
+                membership("http://localhost:8080"), membership("http://localhost:8081"), membership("http://localhost:8082/"));
+
+        for (ClusterMembership member : members) {
+            assertEquals(members.get(0).ownerOf("report.ftl"), member.ownerOf("report.ftl"));
+            assertEquals(2, member.peers().size());
+        }
+        assertEquals(1, members.stream().filter(member -> member.isLocal("report.ftl")).count());
+    }
+
+    @Test
+    void standaloneOwnsEverything() {
+        ClusterMembership standalone = ClusterMembership.standalone();
+
+        assertFalse(standalone.isEnabled());
+        assertTrue(standalone.isLocal("storage-lifecycle"));
+        assertTrue(standalone.peers().isEmpty());
+        assertFalse(standalone.isTrusted(""));
+    }
+
+    @Test
+    void clusterModeNeedsASecretAndChecksIt() {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setEnabled(true);
+        properties.setSelfUrl("http://localhost:8080");
+        properties.setNodes(NODES);
+        assertThrows(IllegalStateException.class, () -> new ClusterMembership(properties));
+
+        ClusterMembership member = membership("http://localhost:8080");
+        assertTrue(member.isTrusted("s3cret"));
+        assertFalse(member.isTrusted("guess"));
+        assertFalse(member.isTrusted(null));
+    }
+
+    private static ClusterMembership membership(String self) {
+        ClusterProperties properties = new ClusterProperties();
+        properties.setEnabled(true);
+        properties.setSelfUrl(self);
+        properties.setNodes(NODES);
+        properties.setSecret("s3cret");
+        return new ClusterMembership(properties);
+    }
+}
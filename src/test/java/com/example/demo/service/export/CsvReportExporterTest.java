@@ -0,0 +1,85 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReportExporterTest {
+
+    private final CsvReportExporter exporter = new CsvReportExporter();
+
+    @Test
+    void writesHeaderAndEscapesFields() throws Exception {
+        ReportItem plain = new ReportItem();
+        plain.setName("Item 1");
+        plain.setDescription("Plain");
+        plain.setValue("100");
+
+        ReportItem tricky = new ReportItem();
+        tricky.setName("Item, 2");
+        tricky.setDescription("Says \"hi\"");
+        tricky.setValue(null);
+
+        ReportData reportData = new ReportData();
+        reportData.setReportId("REP-1");
+        reportData.setTitle("CSV");
+        reportData.setItems(List.of(plain, tricky));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.export(reportData, outputStream);
+
+        assertEquals("name,description,value\r\n"
+                        + "Item 1,Plain,100\r\n"
+                        + "\"Item, 2\",\"Says \"\"hi\"\"\",\r\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void prefixesFieldsThatSpreadsheetsWouldEvaluate() throws Exception {
+        ReportItem formula = new ReportItem();
+        formula.setName("=HYPERLINK(\"http://example.com\",\"x\")");
+        formula.setDescription("@SUM(A1:A2)");
+        formula.setValue("-2+3");
+
+        ReportItem control = new ReportItem();
+        control.setName("\tTabbed");
+        control.setDescription("\rReturn");
+        control.setValue("+1");
+
+        ReportData reportData = new ReportData();
+        reportData.setReportId("REP-1");
+        reportData.setTitle("CSV");
+        reportData.setItems(List.of(formula, control));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.export(reportData, outputStream);
+
+        assertEquals("name,description,value\r\n"
+                        + "\"'=HYPERLINK(\"\"http://example.com\"\",\"\"x\"\")\",'@SUM(A1:A2),'-2+3\r\n"
+                        + "'\tTabbed,\"'\rReturn\",'+1\r\n",
+                outputStream.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void acceptHeaderPicksFirstConcreteFormat() {
+        assertEquals(ReportFormat.CSV, ReportFormat.fromAccept("*/*, text/csv;q=0.9", ReportFormat.PDF));
+        assertEquals(ReportFormat.XLSX, ReportFormat.fromAccept(
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ReportFormat.PDF));
+        assertEquals(ReportFormat.PDF, ReportFormat.fromAccept("*/*", ReportFormat.PDF));
+        assertEquals(ReportFormat.PDF, ReportFormat.fromAccept(null, ReportFormat.PDF));
+    }
+
+    @Test
+    void acceptHeaderPrefersHigherQualityAndSkipsUnacceptable() {
+        assertEquals(ReportFormat.XLSX, ReportFormat.fromAccept(
+                "text/csv;q=0.5, application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", ReportFormat.PDF));
+        assertEquals(ReportFormat.HTML, ReportFormat.fromAccept("text/csv;q=0, text/html;q=0.1", ReportFormat.PDF));
+        assertEquals(ReportFormat.PDF, ReportFormat.fromAccept("text/csv;q=0", ReportFormat.PDF));
+    }
+}
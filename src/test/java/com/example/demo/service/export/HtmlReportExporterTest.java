@@ -0,0 +1,67 @@
+package com.example.demo.service.export;
+
+import com.example.demo.config.TestFreemarkerConfig;
+import com.example.demo.dto.ReportData;
+import com.example.demo.exception.SchemaViolationException;
+import com.example.demo.repository.ReportRepository;
+import com.example.demo.service.PdfGeneratorService;
+import com.example.demo.service.PdfOutputOptimizer;
+import com.example.demo.service.schema.DataSchemaRegistry;
+import com.example.demo.util.FileStorageUtil;
+import com.example.demo.util.PdfBufferFactory;
+import com.example.demo.util.SyntheticReports;
+import freemarker.template.Configuration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class HtmlReportExporterTest {
+
+    private HtmlReportExporter exporter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Configuration freemarkerConfig = new TestFreemarkerConfig().customFreemarkerConfig();
+        PdfBufferFactory bufferFactory = PdfBufferFactory.withDefaults();
+        PdfGeneratorService pdfGeneratorService = new PdfGeneratorService(freemarkerConfig, new FileStorageUtil(),
+                mock(ReportRepository.class), new PdfOutputOptimizer(bufferFactory), bufferFactory,
+                DataSchemaRegistry.withDefaults());
+        exporter = new HtmlReportExporter(freemarkerConfig, pdfGeneratorService);
+    }
+
+    @Test
+    void escapesReportValues() throws Exception {
+        ReportData reportData = reportData("<b>Quarterly</b>", "<script>alert(1)</script>");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.export(reportData, outputStream);
+        String html = outputStream.toString(StandardCharsets.UTF_8);
+
+        assertTrue(html.contains("&lt;b&gt;Quarterly&lt;/b&gt;"));
+        assertTrue(html.contains("&lt;script&gt;alert(1)&lt;/script&gt;"));
+        assertFalse(html.contains("<script>"));
+    }
+
+    @Test
+    void rejectsDataThatBreaksTheTemplateSchemaBeforeWriting() {
+        ReportData reportData = reportData("Quarterly", "Item");
+        reportData.setData(Map.of("total", "lots"));
+
+        assertThrows(SchemaViolationException.class, () -> exporter.prepare(reportData));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        assertThrows(SchemaViolationException.class, () -> exporter.export(reportData, outputStream));
+        assertEquals(0, outputStream.size());
+    }
+
+    private static ReportData reportData(String title, String itemName) {
+        ReportData reportData = SyntheticReports.of("REP-1", title, 1);
+        reportData.getItems().get(0).setName(itemName);
+        return reportData;
+    }
+}
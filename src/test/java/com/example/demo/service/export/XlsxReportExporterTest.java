@@ -0,0 +1,63 @@
+package com.example.demo.service.export;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.util.SyntheticReports;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XlsxReportExporterTest {
+
+    private final XlsxReportExporter exporter = new XlsxReportExporter();
+
+    @Test
+    void writesHeaderAndOneRowPerItem() throws Exception {
+        try (XSSFWorkbook workbook = export(reportData("Sales: Q1/Q2", 3))) {
+            assertEquals(1, workbook.getNumberOfSheets());
+            Sheet sheet = workbook.getSheetAt(0);
+            assertEquals("Sales  Q1 Q2", sheet.getSheetName());
+            assertEquals("Name", sheet.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Item 2", sheet.getRow(3).getCell(0).getStringCellValue());
+            assertEquals("2", sheet.getRow(3).getCell(2).getStringCellValue());
+            assertEquals(3, sheet.getLastRowNum());
+        }
+    }
+
+    @Test
+    void continuesOnNewSheetsPastTheRowLimit() throws Exception {
+        exporter.maxRowsPerSheet = 4;
+
+        try (XSSFWorkbook workbook = export(reportData("A title long enough to be truncated", 7))) {
+            assertEquals(3, workbook.getNumberOfSheets());
+            assertEquals("A title long enough to be trunc", workbook.getSheetName(0));
+            assertEquals("A title long enough to be t (2)", workbook.getSheetName(1));
+            Sheet last = workbook.getSheetAt(2);
+            assertEquals("Name", last.getRow(0).getCell(0).getStringCellValue());
+            assertEquals("Item 6", last.getRow(1).getCell(0).getStringCellValue());
+            assertEquals(1, last.getLastRowNum());
+        }
+    }
+
+    @Test
+    void emptyReportStillHasAHeader() throws Exception {
+        try (XSSFWorkbook workbook = export(reportData(null, 0))) {
+            assertEquals("Report", workbook.getSheetName(0));
+            assertEquals("Value", workbook.getSheetAt(0).getRow(0).getCell(2).getStringCellValue());
+        }
+    }
+
+    private XSSFWorkbook export(ReportData reportData) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        exporter.export(reportData, outputStream);
+        return new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+
+    private static ReportData reportData(String title, int itemCount) {
+        return SyntheticReports.of("REP-1", title, itemCount);
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.demo.service.schema;
+
+import com.example.demo.dto.ReportItem;
+import com.example.demo.exception.SchemaViolationException;
+import freemarker.template.TemplateBooleanModel;
+import freemarker.template.TemplateHashModel;
+import freemarker.template.TemplateNumberModel;
+import freemarker.template.TemplateScalarModel;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CompiledSchemaTest {
+
+    private static final SchemaLimits LIMITS = new SchemaLimits(8, 2, 32);
+
+    @Test
+    void bindsTypedAndNestedFieldsIntoSlots() {
+        CompiledSchema schema = schema(false);
+
+        DataRow row = schema.bind(Map.of(
+                "total", "12.5",
+                "count", 3,
+                "confidential", true,
+                "customer", Map.of("name", "ACME")));
+
+        assertEquals(12.5, schema.accessor("total").getDouble(row));
+        assertEquals(3L, schema.accessor("count").getLong(row));
+        assertTrue(schema.accessor("confidential").getBoolean(row));
+        assertEquals("ACME", schema.accessor("customer.name").get(row));
+    }
+
+    @Test
+    void rejectsBadPayloadsBeforeRendering() {
+        CompiledSchema schema = schema(true);
+
+        assertThrows(SchemaViolationException.class, () -> schema.bind(Map.of("total", "lots", "customer", Map.of("name", "ACME"))));
+        assertThrows(SchemaViolationException.class, () -> schema.bind(Map.of("total", 1)));
+        assertThrows(SchemaViolationException.class, () -> schema.bind(Map.of("extra", 1, "customer", Map.of("name", "ACME"))));
+        assertThrows(SchemaViolationException.class, () -> schema.bind(Map.of("customer", Map.of("name", "x".repeat(33)))));
+    }
+
+    @Test
+    void rejectsOversizedAndDeepMapsWithoutASchema() {
+        Map<String, Object> wide = new HashMap<>();
+        for (int i = 0; i < 9; i++) {
+            wide.put("key" + i, i);
+        }
+
+        assertThrows(SchemaViolationException.class, () -> CompiledSchema.checkLimits(wide, LIMITS));
+        assertThrows(SchemaViolationException.class,
+                () -> CompiledSchema.checkLimits(Map.of("a", Map.of("b", Map.of("c", 1))), LIMITS));
+        assertDoesNotThrow(() -> CompiledSchema.checkLimits(Map.of("a", Map.of("b", 1)), LIMITS));
+    }
+
+    @Test
+    void checksCollectionElementsAgainstTheLimits() {
+        assertThrows(SchemaViolationException.class,
+                () -> CompiledSchema.checkLimits(Map.of("tags", List.of("ok", "x".repeat(33))), LIMITS));
+        assertThrows(SchemaViolationException.class,
+                () -> CompiledSchema.checkLimits(Map.of("tags", List.of(List.of("nested"))), LIMITS));
+        assertThrows(SchemaViolationException.class,
+                () -> CompiledSchema.checkLimits(Map.of("rows", List.of(Map.of("name", "ACME"))), LIMITS));
+        assertThrows(SchemaViolationException.class,
+                () -> CompiledSchema.checkLimits(Map.of("tags", List.of(1, 2, 3, 4, 5, 6, 7, 8)), LIMITS));
+        assertThrows(SchemaViolationException.class,
+                () -> schema(false).bind(Map.of("undeclared", List.of("x".repeat(33)))));
+        assertDoesNotThrow(() -> CompiledSchema.checkLimits(Map.of("tags", List.of("a", "b")), LIMITS));
+    }
+
+    @Test
+    void freemarkerModelReadsSlotsAndNestedPrefixes() throws Exception {
+        CompiledSchema schema = schema(false);
+        DataRowModel model = new DataRowModel(schema.bind(Map.of(
+                "total", 7.0, "confidential", false, "customer", Map.of("name", "ACME"))));
+
+        assertEquals(7.0, ((TemplateNumberModel) model.get("total")).getAsNumber().doubleValue());
+        assertEquals(TemplateBooleanModel.FALSE, model.get("confidential"));
+        TemplateHashModel customer = (TemplateHashModel) model.get("customer");
+        assertEquals("ACME", ((TemplateScalarModel) customer.get("name")).getAsString());
+        assertNull(model.get("count"));
+        assertNull(model.get("undeclared"));
+        assertFalse(model.isEmpty());
+        assertFalse(customer.isEmpty());
+    }
+
+    @Test
+    void freemarkerModelIsEmptyWithoutValues() throws Exception {
+        DataSchema optional = new DataSchema();
+        optional.setTemplate("test.ftl");
+        optional.setFields(List.of(
+                field("customer.name", FieldType.STRING, false),
+                field("total", FieldType.DOUBLE, false)));
+        CompiledSchema schema = new CompiledSchema(optional, LIMITS);
+        DataRowModel model = new DataRowModel(schema.bind(Map.of("total", 1.0)));
+
+        assertFalse(model.isEmpty());
+        assertTrue(((TemplateHashModel) model.get("customer")).isEmpty());
+        assertTrue(new DataRowModel(schema.bind(Map.of())).isEmpty());
+    }
+
+    @Test
+    void jasperDataSourceReadsItemsAndDataFields() throws JRException {
+        CompiledSchema schema = schema(false);
+        ReportItem item = new ReportItem();
+        item.setName("Widget");
+        ReportItemDataSource dataSource = new ReportItemDataSource(List.of(item, item),
+                schema.bind(Map.of("customer", Map.of("name", "ACME"))));
+        JRField name = field("name");
+        JRField customer = field("data.customer.name");
+
+        int rows = 0;
+        while (dataSource.next()) {
+            assertEquals("Widget", dataSource.getFieldValue(name));
+            assertEquals("ACME", dataSource.getFieldValue(customer));
+            rows++;
+        }
+        assertEquals(2, rows);
+
+        ReportItemDataSource withoutSchema = new ReportItemDataSource(List.of(item), null);
+        assertTrue(withoutSchema.next());
+        assertThrows(JRException.class, () -> withoutSchema.getFieldValue(customer));
+    }
+
+    @Test
+    void registryKeepsTheNewestVersion() {
+        DataSchemaRegistry registry = DataSchemaRegistry.withDefaults();
+        DataSchema v1 = definition(false);
+        v1.setTemplate("custom.ftl");
+        DataSchema v2 = definition(false);
+        v2.setTemplate("custom.ftl");
+        v2.setVersion(2);
+
+        registry.register(v2);
+        registry.register(v1);
+
+        assertEquals(2, registry.schemaFor("custom.ftl").getVersion());
+        assertEquals("custom.ftl@2", registry.cacheKey("custom.ftl"));
+        assertEquals("other.ftl", registry.cacheKey("other.ftl"));
+    }
+
+    private static JRField field(String name) {
+        JRField field = mock(JRField.class);
+        when(field.getName()).thenReturn(name);
+        return field;
+    }
+
+    private static CompiledSchema schema(boolean strict) {
+        return new CompiledSchema(definition(strict), LIMITS);
+    }
+
+    private static DataSchema definition(boolean strict) {
+        DataSchema schema = new DataSchema();
+        schema.setTemplate("test.ftl");
+        schema.setStrict(strict);
+        schema.setFields(List.of(
+                field("customer.name", FieldType.STRING, true),
+                field("total", FieldType.DOUBLE, false),
+                field("count", FieldType.LONG, false),
+                field("confidential", FieldType.BOOLEAN, false)));
+        return schema;
+    }
+
+    private static FieldDefinition field(String name, FieldType type, boolean required) {
+        FieldDefinition field = new FieldDefinition();
+        field.setName(name);
+        field.setType(type);
+        field.setRequired(required);
+        return field;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileStorageUtilTest {
+
+    private static final String REPORT_KEY = "3f".repeat(32);
+    private static final String OTHER_REPORT_KEY = "a0".repeat(32);
+
+    @TempDir
+    Path storageDir;
+
+    private final FileStorageUtil fileStorageUtil = new FileStorageUtil();
+
+    private PdfBufferFactory bufferFactory;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(fileStorageUtil, "storageDirectory", storageDir.toString());
+        ReflectionTestUtils.setField(fileStorageUtil, "tempDirectory", storageDir.resolve("temp").toString());
+        bufferFactory = new PdfBufferFactory(DataSize.ofBytes(64), 1, storageDir.toString());
+    }
+
+    @Test
+    void sameReportIsStoredOnceWithTwoLinks() throws Exception {
+        byte[] first = "%PDF-1.4 generated on 2026-10-19 10:00:00".getBytes(StandardCharsets.US_ASCII);
+        byte[] second = "%PDF-1.4 generated on 2026-10-19 10:00:07".getBytes(StandardCharsets.US_ASCII);
+
+        Path firstPath = Path.of(save(first, "first.pdf", REPORT_KEY));
+        Path secondPath = Path.of(save(second, "second.pdf", REPORT_KEY));
+
+        assertNotEquals(firstPath, secondPath);
+        List<Path> objects = objects();
+        assertEquals(1, objects.size());
+        assertTrue(Files.isSameFile(firstPath, objects.get(0)));
+        assertTrue(Files.isSameFile(secondPath, objects.get(0)));
+        assertEquals(3, Files.getAttribute(objects.get(0), "unix:nlink"));
+        assertArrayEquals(first, Files.readAllBytes(secondPath), "the later render links to the first one");
+    }
+
+    @Test
+    void differentReportsGetTheirOwnObject() throws Exception {
+        byte[] content = "%PDF-1.4 same bytes".getBytes(StandardCharsets.US_ASCII);
+        save(content, "one.pdf", REPORT_KEY);
+        save(content, "two.pdf", OTHER_REPORT_KEY);
+
+        assertEquals(2, objects().size());
+    }
+
+    @Test
+    void appendablePdfsAreNotLinked() throws Exception {
+        try (PdfBuffer buffer = buffer("%PDF-1.4 ledger".getBytes(StandardCharsets.US_ASCII))) {
+            fileStorageUtil.saveAppendablePdf(buffer, "ledger.pdf");
+        }
+
+        assertTrue(objects().isEmpty());
+    }
+
+    @Test
+    void tempPdfsAreDeletedOnceStreamed() throws Exception {
+        Path temp = fileStorageUtil.createTempPdf();
+        Files.writeString(temp, "%PDF-1.4 jasper");
+        assertTrue(fileStorageUtil.isTempFile(temp.toString()));
+
+        Resource resource = fileStorageUtil.pdfResource(temp.toString());
+        try (InputStream in = resource.getInputStream()) {
+            assertEquals("%PDF-1.4 jasper", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+
+        assertFalse(Files.exists(temp));
+    }
+
+    @Test
+    void storedPdfsAreKeptWhenStreamed() throws Exception {
+        Path stored = Path.of(save("%PDF-1.4 stored".getBytes(StandardCharsets.US_ASCII), "stored.pdf", REPORT_KEY));
+        assertFalse(fileStorageUtil.isTempFile(stored.toString()));
+
+        try (InputStream in = fileStorageUtil.pdfResource(stored.toString()).getInputStream()) {
+            in.readAllBytes();
+        }
+
+        assertTrue(Files.exists(stored));
+    }
+
+    private String save(byte[] content, String fileName, String reportKey) throws Exception {
+        try (PdfBuffer buffer = buffer(content)) {
+            return fileStorageUtil.savePdf(buffer, fileName, reportKey);
+        }
+    }
+
+    private PdfBuffer buffer(byte[] content) throws Exception {
+        PdfBuffer buffer = bufferFactory.create();
+        try (OutputStream out = buffer.outputStream()) {
+            out.write(content);
+        }
+        return buffer;
+    }
+
+    private List<Path> objects() throws Exception {
+        Path objectsDir = fileStorageUtil.getObjectsDir();
+        if (!Files.isDirectory(objectsDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(objectsDir)) {
+            return files.filter(Files::isRegularFile).toList();
+        }
+    }
+}
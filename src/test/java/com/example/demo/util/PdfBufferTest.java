@@ -0,0 +1,132 @@
+package com.example.demo.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PdfBufferTest {
+
+    @TempDir
+    Path spillDir;
+
+    @Test
+    void smallContentStaysInMemory() throws Exception {
+        PdfBufferFactory factory = new PdfBufferFactory(DataSize.ofBytes(64), 1, spillDir.toString());
+        byte[] content = "%PDF-1.4 small".getBytes(StandardCharsets.US_ASCII);
+
+        try (PdfBuffer buffer = factory.create()) {
+            write(buffer, content);
+
+            assertFalse(buffer.isSpilled());
+            assertEquals(content.length, buffer.size());
+            assertEquals(sha256(content), buffer.contentHash());
+            try (InputStream in = buffer.openInputStream()) {
+                assertArrayEquals(content, in.readAllBytes());
+            }
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void largeContentSpillsAndIsRenamedIntoPlace() throws Exception {
+        PdfBufferFactory factory = new PdfBufferFactory(DataSize.ofBytes(16), 1, spillDir.toString());
+        byte[] content = "%PDF-1.4 a document well past the sixteen byte threshold".getBytes(StandardCharsets.US_ASCII);
+        Path target = spillDir.resolve("stored.pdf");
+
+        try (PdfBuffer buffer = factory.create()) {
+            try (OutputStream out = buffer.outputStream()) {
+                out.write(content[0]);
+                out.write(content, 1, 10);
+                out.write(content, 11, content.length - 11);
+            }
+
+            assertTrue(buffer.isSpilled());
+            assertEquals(sha256(content), buffer.contentHash());
+            buffer.moveTo(target);
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void exhaustedPoolSpillsImmediately() throws Exception {
+        PdfBufferFactory factory = new PdfBufferFactory(DataSize.ofBytes(64), 1, spillDir.toString());
+
+        try (PdfBuffer pooled = factory.create(); PdfBuffer overflow = factory.create()) {
+            assertFalse(pooled.isSpilled());
+            assertTrue(overflow.isSpilled());
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    @Test
+    void streamsFailAfterCloseAndHoldThePooledBufferUntilClosed() throws Exception {
+        PdfBufferFactory factory = new PdfBufferFactory(DataSize.ofBytes(64), 1, spillDir.toString());
+        PdfBuffer buffer = factory.create();
+        write(buffer, "%PDF-1.4 small".getBytes(StandardCharsets.US_ASCII));
+        InputStream in = buffer.openInputStream();
+
+        buffer.close();
+        assertThrows(IOException.class, in::read);
+        assertThrows(IOException.class, buffer::openInputStream);
+        try (PdfBuffer next = factory.create()) {
+            assertTrue(next.isSpilled(), "the pooled buffer is still referenced by the open stream");
+        }
+
+        in.close();
+        try (PdfBuffer next = factory.create()) {
+            assertFalse(next.isSpilled());
+        }
+    }
+
+    @Test
+    void spilledStreamsDoNotHoldThePooledBuffer() throws Exception {
+        PdfBufferFactory factory = new PdfBufferFactory(DataSize.ofBytes(16), 1, spillDir.toString());
+        byte[] content = "%PDF-1.4 a document well past the sixteen byte threshold".getBytes(StandardCharsets.US_ASCII);
+        PdfBuffer buffer = factory.create();
+        write(buffer, content);
+        assertTrue(buffer.isSpilled());
+
+        try (InputStream in = buffer.openInputStream()) {
+            assertArrayEquals(content, in.readAllBytes());
+        }
+        InputStream late = buffer.openInputStream();
+        buffer.close();
+
+        assertEquals(content[0], late.read(), "a mapping stays readable after the buffer is closed");
+        late.close();
+        try (PdfBuffer next = factory.create()) {
+            assertFalse(next.isSpilled(), "the pooled buffer went back to the pool");
+        }
+        assertEquals(0, spillFiles());
+    }
+
+    private long spillFiles() throws Exception {
+        try (Stream<Path> files = Files.list(spillDir)) {
+            return files.filter(file -> file.toString().endsWith(".spill")).count();
+        }
+    }
+
+    private static void write(PdfBuffer buffer, byte[] content) throws Exception {
+        try (OutputStream out = buffer.outputStream()) {
+            out.write(content);
+        }
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+}
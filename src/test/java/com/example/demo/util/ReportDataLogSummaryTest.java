@@ -0,0 +1,52 @@
+package com.example.demo.util;
+
+import com.example.demo.dto.ReportData;
+import com.example.demo.dto.ReportItem;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportDataLogSummaryTest {
+
+    @Test
+    void summarisesSizesWithoutItemContents() {
+        ReportData reportData = new ReportData();
+        reportData.setReportId("R-1");
+        reportData.setTitle("Quarterly");
+        List<ReportItem> items = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            ReportItem item = new ReportItem();
+            item.setName("secret-" + i);
+            items.add(item);
+        }
+        reportData.setItems(items);
+
+        String summary = ReportDataLogSummary.of(reportData).toString();
+
+        assertEquals("ReportData[id=R-1, title=Quarterly, items=1000]", summary);
+    }
+
+    @Test
+    void capsLongTitlesAndManyDataKeys() {
+        ReportData reportData = new ReportData();
+        reportData.setReportId("R-2");
+        reportData.setTitle("x".repeat(10_000));
+        Map<String, Object> data = new LinkedHashMap<>();
+        for (int i = 0; i < 50; i++) {
+            data.put("key" + i, "v".repeat(1_000));
+        }
+        reportData.setData(data);
+
+        String summary = ReportDataLogSummary.of(reportData).toString();
+
+        assertTrue(summary.length() <= ReportDataLogSummary.MAX_LENGTH);
+        assertTrue(summary.contains("items=0"));
+        assertTrue(summary.contains("+40 more"));
+        assertFalse(summary.contains("vvv"));
+    }
+}